@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeIndex;
+import com.google.sps.DayOccupancy;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the list-based {@code FindMeetingQuery} paths with the bitmap path on the same
+ * calendars. Each attendee gets about {@code eventsPerAttendee} random one-person meetings, and
+ * the request asks for half of them as mandatory and half as optional attendees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayOccupancyBenchmark {
+  @Param({"4", "16"})
+  public int eventsPerAttendee;
+
+  @Param({"8"})
+  public int attendees;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private Collection<Event> events;
+  private AttendeeIndex index;
+  private Map<String, DayOccupancy> occupancies;
+  private MeetingRequest request;
+
+  @Setup
+  public void setUp() {
+    // One-person events of about an hour each, so the density is the event count over 24 hours.
+    int eventCount = attendees * eventsPerAttendee;
+    SyntheticCalendar calendar = new SyntheticCalendar(eventCount, attendees,
+        /* maxAttendeesPerEvent= */ 1, /* overlapDensity= */ eventCount / 24.0, /* seed= */ 42);
+    events = calendar.getEvents();
+    index = new AttendeeIndex(events);
+    occupancies = DayOccupancy.byAttendee(events);
+    request = calendar.newRequest(attendees / 2, attendees / 2, 30);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventSweep() {
+    return query.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> attendeeIndex() {
+    return query.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> dayOccupancy() {
+    return query.query(occupancies, request);
+  }
+}
@@ -0,0 +1,92 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query} over synthetic calendars. Throughput mode reports
+ * queries per second and sample mode reports latency percentiles. Allocation per query is
+ * reported by the GC profiler, which {@code BenchmarkMain} always enables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  // Cycling through several requests keeps one lucky request from dominating the results.
+  private static final int REQUESTS = 64;
+
+  @Param({"1000", "100000"})
+  public int eventCount;
+
+  @Param({"1000"})
+  public int attendeeCount;
+
+  @Param({"3"})
+  public int maxAttendeesPerEvent;
+
+  @Param({"1", "20"})
+  public double overlapDensity;
+
+  @Param({"3"})
+  public int mandatoryAttendees;
+
+  @Param({"0", "3"})
+  public int optionalAttendees;
+
+  @Param({"30"})
+  public long duration;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final MeetingRequest[] requests = new MeetingRequest[REQUESTS];
+  private List<Event> events;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(
+        eventCount, attendeeCount, maxAttendeesPerEvent, overlapDensity, /* seed= */ 42);
+    events = calendar.getEvents();
+    for (int i = 0; i < REQUESTS; i++) {
+      requests[i] = calendar.newRequest(mandatoryAttendees, optionalAttendees, duration);
+    }
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    next = (next + 1) % REQUESTS;
+    return query.query(events, requests[next]);
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeIndex;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares merging the calendars of a request on the calling thread with merging them on the
+ * common fork/join pool, for growing numbers of mandatory attendees. The smallest
+ * {@code attendees} at which {@code parallel} beats {@code sequential} is the machine's crossover
+ * point, the value to use as the parallel threshold of {@code FindMeetingQuery}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMergeBenchmark {
+  @Param({"16", "64", "256", "1024", "4096"})
+  public int attendees;
+
+  @Param({"8"})
+  public int eventsPerAttendee;
+
+  private final FindMeetingQuery sequentialQuery =
+      new FindMeetingQuery(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+  private final FindMeetingQuery parallelQuery =
+      new FindMeetingQuery(ForkJoinPool.commonPool(), 0);
+  private AttendeeIndex index;
+  private MeetingRequest request;
+
+  @Setup
+  public void setUp() {
+    // One-person meetings of about 30 minutes, so every attendee has a calendar of their own to
+    // merge.
+    int eventCount = attendees * eventsPerAttendee;
+    SyntheticCalendar calendar = new SyntheticCalendar(eventCount, attendees,
+        /* maxAttendeesPerEvent= */ 1, /* overlapDensity= */ eventCount / 48.0, /* seed= */ 42);
+    index = new AttendeeIndex(calendar.getEvents());
+    request = calendar.newRequest(attendees, 0, 30);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> sequential() {
+    return sequentialQuery.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> parallel() {
+    return parallelQuery.query(index, request);
+  }
+}
@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a random but reproducible day of events for benchmarks. The shape of the calendar is
+ * controlled by the number of events, the size of the attendee directory and the overlap
+ * density, which is the average number of events in progress at any minute of the day.
+ */
+public final class SyntheticCalendar {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private final List<String> attendees = new ArrayList<>();
+  private final List<Event> events = new ArrayList<>();
+  private final Random random;
+
+  /**
+   * Creates a calendar.
+   *
+   * @param eventCount The number of events in the day.
+   * @param attendeeCount The number of people in the directory. Must be positive.
+   * @param maxAttendeesPerEvent The most people a single event can have. Must be positive.
+   * @param overlapDensity The average number of events in progress at any minute.
+   * @param seed The seed for the random generator, so runs can be compared.
+   */
+  public SyntheticCalendar(int eventCount, int attendeeCount, int maxAttendeesPerEvent,
+      double overlapDensity, long seed) {
+    if (attendeeCount <= 0) {
+      throw new IllegalArgumentException("attendeeCount must be positive");
+    }
+
+    if (maxAttendeesPerEvent <= 0) {
+      throw new IllegalArgumentException("maxAttendeesPerEvent must be positive");
+    }
+
+    random = new Random(seed);
+    for (int i = 0; i < attendeeCount; i++) {
+      attendees.add("Person " + i);
+    }
+
+    // Durations are drawn uniformly from [1, 2 * mean] so that, on average, overlapDensity events
+    // cover each minute of the day.
+    int meanDuration = (int) Math.max(1,
+        Math.min(MINUTES_PER_DAY, overlapDensity * MINUTES_PER_DAY / Math.max(1, eventCount)));
+    for (int i = 0; i < eventCount; i++) {
+      int duration = Math.min(MINUTES_PER_DAY, 1 + random.nextInt(2 * meanDuration));
+      int start = random.nextInt(MINUTES_PER_DAY - duration + 1);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          pickAttendees(1 + random.nextInt(maxAttendeesPerEvent))));
+    }
+  }
+
+  /**
+   * Returns the generated events, in no particular order.
+   */
+  public List<Event> getEvents() {
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * Returns everyone in the directory.
+   */
+  public List<String> getAttendees() {
+    return Collections.unmodifiableList(attendees);
+  }
+
+  /**
+   * Creates a request for {@code mandatory} random people plus {@code optional} other random
+   * people. Together they can't be more people than the directory holds.
+   */
+  public MeetingRequest newRequest(int mandatory, int optional, long duration) {
+    if (mandatory < 0 || optional < 0) {
+      throw new IllegalArgumentException("mandatory and optional can't be negative");
+    }
+    if ((long) mandatory + optional > attendees.size()) {
+      throw new IllegalArgumentException(String.format(
+          "%d mandatory and %d optional attendees don't fit in a directory of %d people",
+          mandatory, optional, attendees.size()));
+    }
+
+    List<String> people = pickAttendees(mandatory + optional);
+    MeetingRequest request = new MeetingRequest(people.subList(0, mandatory), duration);
+    for (String person : people.subList(mandatory, people.size())) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+
+  private List<String> pickAttendees(int count) {
+    count = Math.min(count, attendees.size());
+    Set<String> picked = new HashSet<>();
+    List<String> ordered = new ArrayList<>();
+    while (ordered.size() < count) {
+      String person = attendees.get(random.nextInt(attendees.size()));
+      if (picked.add(person)) {
+        ordered.add(person);
+      }
+    }
+    return ordered;
+  }
+}
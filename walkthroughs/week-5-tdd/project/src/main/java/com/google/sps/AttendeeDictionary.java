@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps attendee names to dense {@code int} IDs, handing out 0, 1, 2 and so on in the order names
+ * are first seen. Working with IDs lets a set of attendees be a bitset and turns membership tests
+ * into bit tests instead of {@code String} hashing. IDs are never reused, so an ID stays valid
+ * for the life of the dictionary.
+ */
+public final class AttendeeDictionary {
+  private static final AttendeeDictionary DEFAULT = new AttendeeDictionary();
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  // Guarded by {@code this}. Lookups of known names don't lock.
+  private int nextId;
+
+  /**
+   * Returns the dictionary that every {@code Event} interns its attendees into.
+   */
+  public static AttendeeDictionary getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns the ID of {@code name}, giving it the next free ID if it has none yet.
+   */
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (this) {
+      id = ids.get(name);
+      if (id == null) {
+        id = nextId++;
+        ids.put(name, id);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Returns the IDs of {@code names}, sorted and without duplicates.
+   */
+  public int[] intern(Collection<String> names) {
+    int[] internedIds = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      internedIds[count++] = intern(name);
+    }
+    Arrays.sort(internedIds);
+
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || internedIds[i] != internedIds[distinct - 1]) {
+        internedIds[distinct++] = internedIds[i];
+      }
+    }
+    return distinct == internedIds.length ? internedIds : Arrays.copyOf(internedIds, distinct);
+  }
+
+  /**
+   * Returns the ID of {@code name}, or -1 if it has never been interned. Unlike
+   * {@link #intern(String)}, this never grows the dictionary.
+   */
+  public int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns how many names have been interned.
+   */
+  public int size() {
+    return ids.size();
+  }
+}
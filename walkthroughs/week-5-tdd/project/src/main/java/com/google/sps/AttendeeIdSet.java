@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of attendee IDs from an {@code AttendeeDictionary}, kept both as a bitset for constant
+ * time lookups and as a list for walking the members. Clearing only touches the bits that were
+ * set, so one set can be refilled for every query without allocating.
+ */
+public final class AttendeeIdSet {
+  private long[] words = new long[1];
+  private int[] ids = new int[8];
+  private int size;
+
+  /**
+   * Returns the number of IDs in the set.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the set holds no IDs.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns true if {@code id} is in the set.
+   */
+  public boolean contains(int id) {
+    int word = id >>> 6;
+    return word < words.length && (words[word] & (1L << id)) != 0;
+  }
+
+  /**
+   * Adds {@code id} to the set.
+   */
+  public void add(int id) {
+    if (contains(id)) {
+      return;
+    }
+
+    int word = id >>> 6;
+    if (word >= words.length) {
+      words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+    }
+    words[word] |= 1L << id;
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+    }
+    ids[size++] = id;
+  }
+
+  /**
+   * Adds the IDs of {@code names} in {@code dictionary}. Names that were never interned are left
+   * out, since no event can have them.
+   */
+  public void addAll(Collection<String> names, AttendeeDictionary dictionary) {
+    for (String name : names) {
+      int id = dictionary.find(name);
+      if (id >= 0) {
+        add(id);
+      }
+    }
+  }
+
+  /**
+   * Removes every ID but keeps the storage for reuse.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      words[ids[i] >>> 6] = 0;
+    }
+    size = 0;
+  }
+
+  /**
+   * Returns true if any ID in the sorted array {@code sortedIds} is in the set. A short array is
+   * tested bit by bit; a long one, like the attendees of an all-hands meeting, is binary searched
+   * for each member of the set instead.
+   */
+  public boolean intersectsAny(int[] sortedIds) {
+    if (size == 0) {
+      return false;
+    }
+
+    if (sortedIds.length <= size * 32) {
+      for (int id : sortedIds) {
+        if (contains(id)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    for (int i = 0; i < size; i++) {
+      if (Arrays.binarySearch(sortedIds, ids[i]) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,153 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from each attendee to the times they are busy, sorted by start time. Lookups only touch
+ * the calendars of the people asked about, so their cost does not grow with the total number of
+ * events. Each attendee's list is replaced rather than modified when an event changes, which lets
+ * readers use the index without locking.
+ */
+public final class AttendeeIndex implements BusyTimes {
+  private final Map<String, List<TimeRange>> busyTimes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an empty index.
+   */
+  public AttendeeIndex() {}
+
+  /**
+   * Creates an index holding every event in {@code events}.
+   */
+  public AttendeeIndex(Collection<Event> events) {
+    Map<String, List<TimeRange>> calendars = new ConcurrentHashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        calendars.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event.getWhen());
+      }
+    }
+    for (Map.Entry<String, List<TimeRange>> entry : calendars.entrySet()) {
+      List<TimeRange> calendar = entry.getValue();
+      Collections.sort(calendar, TimeRange.ORDER_BY_START);
+      busyTimes.put(entry.getKey(), Collections.unmodifiableList(calendar));
+    }
+  }
+
+  /**
+   * Adds {@code event} to the calendar of each of its attendees.
+   */
+  public synchronized void addEvent(Event event) {
+    TimeRange when = event.getWhen();
+    for (String attendee : event.getAttendees()) {
+      List<TimeRange> calendar = new ArrayList<>(getBusyTimes(attendee));
+      int index = Collections.binarySearch(calendar, when, TimeRange.ORDER_BY_START);
+      calendar.add(index < 0 ? -index - 1 : index, when);
+      busyTimes.put(attendee, Collections.unmodifiableList(calendar));
+    }
+  }
+
+  /**
+   * Removes {@code event} from the calendar of each of its attendees. Attendees who were not
+   * booked for the event are left unchanged.
+   */
+  public synchronized void removeEvent(Event event) {
+    for (String attendee : event.getAttendees()) {
+      List<TimeRange> calendar = new ArrayList<>(getBusyTimes(attendee));
+      if (!calendar.remove(event.getWhen())) {
+        continue;
+      }
+
+      if (calendar.isEmpty()) {
+        busyTimes.remove(attendee);
+      } else {
+        busyTimes.put(attendee, Collections.unmodifiableList(calendar));
+      }
+    }
+  }
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy, sorted by start time. Ranges
+   * from different events may overlap.
+   */
+  public List<TimeRange> getBusyTimes(String attendee) {
+    return busyTimes.getOrDefault(attendee, Collections.emptyList());
+  }
+
+  /**
+   * Returns the times at least one of {@code attendees} is busy as sorted, non-overlapping
+   * ranges. The work is proportional to the size of those attendees' calendars only.
+   */
+  @Override
+  public List<TimeRange> getBusyTimes(Collection<String> attendees) {
+    List<List<TimeRange>> calendars = new ArrayList<>();
+    for (String attendee : attendees) {
+      List<TimeRange> calendar = busyTimes.get(attendee);
+      if (calendar != null) {
+        calendars.add(calendar);
+      }
+    }
+    return merge(calendars);
+  }
+
+  /**
+   * Merges lists of ranges, each sorted by start time, into sorted, non-overlapping ranges. The
+   * lists are merged with a heap of cursors, one per list.
+   */
+  static List<TimeRange> merge(List<List<TimeRange>> calendars) {
+    // Each cursor is {calendar, position}, ordered by the start of the range it points at.
+    PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, calendars.size()),
+        (a, b) -> Integer.compare(calendars.get(a[0]).get(a[1]).start(),
+            calendars.get(b[0]).get(b[1]).start()));
+    for (int i = 0; i < calendars.size(); i++) {
+      if (!calendars.get(i).isEmpty()) {
+        cursors.add(new int[] {i, 0});
+      }
+    }
+
+    List<TimeRange> merged = new ArrayList<>();
+    while (!cursors.isEmpty()) {
+      int[] cursor = cursors.poll();
+      List<TimeRange> calendar = calendars.get(cursor[0]);
+      append(merged, calendar.get(cursor[1]));
+      if (++cursor[1] < calendar.size()) {
+        cursors.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Appends {@code range} to the sorted list {@code merged}, joining it with the last range if
+   * the two overlap or touch.
+   */
+  static void append(List<TimeRange> merged, TimeRange range) {
+    int last = merged.size() - 1;
+    if (last >= 0 && range.start() <= merged.get(last).end()) {
+      if (range.end() > merged.get(last).end()) {
+        merged.set(last, TimeRange.fromStartEnd(merged.get(last).start(), range.end(), false));
+      }
+    } else {
+      merged.add(range);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The working hours of the people in one {@code MeetingRequest}, compiled into one
+ * {@code DayOccupancy} mask per distinct set of hours and day. Most people share a handful of
+ * working hours, and the masks are cached across requests, so a query ORs a few bitmaps per day
+ * instead of converting times between zones.
+ *
+ * <p>An instance holds scratch space and belongs to one query at a time.
+ */
+final class AvailabilityMasks {
+  // A whole day's mask is 23 longs, so this holds a few megabytes at most.
+  private static final long MAXIMUM_MASKS = 10_000;
+
+  private static final LoadingCache<MaskKey, DayOccupancy> MASKS = CacheBuilder.newBuilder()
+      .maximumSize(MAXIMUM_MASKS)
+      .build(CacheLoader.from(key -> key.hours.toMask(key.dayStart, 0)));
+
+  // Has no masks, so its scratch space is never touched and it can be shared.
+  private static final AvailabilityMasks NONE =
+      new AvailabilityMasks(Instant.EPOCH, new ArrayList<>(), new ArrayList<>());
+
+  private final Instant epoch;
+  private final List<WorkingHours> mandatory;
+  private final List<WorkingHours> optional;
+  private final DayOccupancy mask = new DayOccupancy();
+  private final IntervalBuffer available = new IntervalBuffer();
+
+  private AvailabilityMasks(Instant epoch, List<WorkingHours> mandatory,
+      List<WorkingHours> optional) {
+    this.epoch = epoch;
+    this.mandatory = mandatory;
+    this.optional = optional;
+  }
+
+  /**
+   * Returns the masks of the attendees of {@code request} that have working hours.
+   */
+  static AvailabilityMasks of(MeetingRequest request) {
+    Map<String, WorkingHours> workingHours = request.getWorkingHours();
+    if (workingHours.isEmpty()) {
+      return NONE;
+    }
+    return new AvailabilityMasks(request.getEpoch(),
+        distinctHours(workingHours, request.getAttendees()),
+        distinctHours(workingHours, request.getOptionalAttendees()));
+  }
+
+  private static List<WorkingHours> distinctHours(Map<String, WorkingHours> workingHours,
+      Collection<String> attendees) {
+    Set<WorkingHours> distinct = new LinkedHashSet<>();
+    for (String attendee : attendees) {
+      WorkingHours hours = workingHours.get(attendee);
+      if (hours != null) {
+        distinct.add(hours);
+      }
+    }
+    return new ArrayList<>(distinct);
+  }
+
+  /**
+   * Returns true if some mandatory attendee has working hours.
+   */
+  boolean hasMandatory() {
+    return !mandatory.isEmpty();
+  }
+
+  /**
+   * Returns true if some optional attendee has working hours.
+   */
+  boolean hasOptional() {
+    return !optional.isEmpty();
+  }
+
+  /**
+   * Marks the minutes of {@code day} outside the mandatory attendees' working hours as busy in
+   * {@code into}.
+   */
+  void addMandatory(long day, DayOccupancy into) {
+    add(mandatory, day, into);
+  }
+
+  /**
+   * Marks the minutes of {@code day} outside the optional attendees' working hours as busy in
+   * {@code into}.
+   */
+  void addOptional(long day, DayOccupancy into) {
+    add(optional, day, into);
+  }
+
+  /**
+   * Adds the parts of {@code free}, which lies on day {@code day} of the calendar, that are
+   * inside the working hours of every mandatory attendee, and of every optional one too if
+   * {@code withOptional}, to {@code out}. Parts shorter than {@code minDuration} are left out.
+   */
+  void restrict(long day, boolean withOptional, IntervalBuffer free, long minDuration,
+      IntervalBuffer out) {
+    restrict(day, (int) (day * LongTimeRange.MINUTES_PER_DAY), withOptional, free, minDuration,
+        out);
+  }
+
+  /**
+   * Same as {@link #restrict(long, boolean, IntervalBuffer, long, IntervalBuffer)}, but
+   * {@code free} and {@code out} are in minutes from the start of {@code day}.
+   */
+  void restrictWithinDay(long day, boolean withOptional, IntervalBuffer free, long minDuration,
+      IntervalBuffer out) {
+    restrict(day, 0, withOptional, free, minDuration, out);
+  }
+
+  private void restrict(long day, int offset, boolean withOptional, IntervalBuffer free,
+      long minDuration, IntervalBuffer out) {
+    mask.clear();
+    addMandatory(day, mask);
+    if (withOptional) {
+      addOptional(day, mask);
+    }
+    available.clear();
+    mask.getFreeTimes(minDuration, offset, available);
+    IntervalBuffer.intersect(free, available, minDuration, out);
+  }
+
+  private void add(List<WorkingHours> group, long day, DayOccupancy into) {
+    for (WorkingHours hours : group) {
+      into.or(MASKS.getUnchecked(new MaskKey(hours, epoch, day)));
+    }
+  }
+
+  /**
+   * Some working hours on one day of a calendar. The day is keyed by the instant it starts, so
+   * calendars with different epochs share the masks of the days they have in common.
+   */
+  private static final class MaskKey {
+    private final WorkingHours hours;
+    private final Instant dayStart;
+
+    MaskKey(WorkingHours hours, Instant epoch, long day) {
+      this.hours = hours;
+      this.dayStart = epoch.plus(Duration.ofMinutes(day * LongTimeRange.MINUTES_PER_DAY));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof MaskKey)) {
+        return false;
+      }
+      MaskKey that = (MaskKey) other;
+      return hours.equals(that.hours) && dayStart.equals(that.dayStart);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(hours, dayStart);
+    }
+  }
+}
@@ -0,0 +1,454 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The JSON form of the calendar types, matching the classes of the same names in script.js. The
+ * shared {@code Gson} is thread-safe and reads and writes {@code Event}, {@code TimeRange} and
+ * {@code MeetingRequest} through hand-written adapters, token by token, so payloads can be
+ * streamed to and from a request without reflection or building the whole document in memory.
+ */
+public final class CalendarJson {
+  private static final TypeAdapter<TimeRange> TIME_RANGE_ADAPTER = new TimeRangeAdapter();
+  private static final TypeAdapter<WorkingHours> WORKING_HOURS_ADAPTER = new WorkingHoursAdapter();
+  private static final TypeAdapter<ResourceRequirement> RESOURCE_REQUIREMENT_ADAPTER =
+      new ResourceRequirementAdapter();
+
+  private static final Gson GSON = new GsonBuilder()
+      .registerTypeAdapter(TimeRange.class, TIME_RANGE_ADAPTER.nullSafe())
+      .registerTypeAdapter(Event.class, new EventAdapter().nullSafe())
+      .registerTypeAdapter(WorkingHours.class, WORKING_HOURS_ADAPTER.nullSafe())
+      .registerTypeAdapter(ResourceRequirement.class, RESOURCE_REQUIREMENT_ADAPTER.nullSafe())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestAdapter().nullSafe())
+      .create();
+
+  /**
+   * Returns the {@code Gson} that every servlet shares.
+   */
+  public static Gson gson() {
+    return GSON;
+  }
+
+  private CalendarJson() {
+    // Disallow instances.
+  }
+
+  /** Reads an array of strings, treating null as empty. */
+  private static List<String> readStrings(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return Collections.emptyList();
+    }
+
+    List<String> strings = new ArrayList<>();
+    in.beginArray();
+    while (in.hasNext()) {
+      strings.add(in.nextString());
+    }
+    in.endArray();
+    return strings;
+  }
+
+  private static void writeStrings(JsonWriter out, Collection<String> strings) throws IOException {
+    out.beginArray();
+    for (String string : strings) {
+      out.value(string);
+    }
+    out.endArray();
+  }
+
+  /**
+   * Reads an object of working hours by attendee, treating null as empty and skipping attendees
+   * whose hours are null.
+   */
+  private static Map<String, WorkingHours> readWorkingHours(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return Collections.emptyMap();
+    }
+
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    in.beginObject();
+    while (in.hasNext()) {
+      String attendee = in.nextName();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+      } else {
+        workingHours.put(attendee, WORKING_HOURS_ADAPTER.read(in));
+      }
+    }
+    in.endObject();
+    return workingHours;
+  }
+
+  /** {@code {"start": 480, "duration": 30}} */
+  private static final class TimeRangeAdapter extends TypeAdapter<TimeRange> {
+    @Override
+    public void write(JsonWriter out, TimeRange range) throws IOException {
+      out.beginObject();
+      out.name("start").value(range.start());
+      out.name("duration").value(range.duration());
+      out.endObject();
+    }
+
+    @Override
+    public TimeRange read(JsonReader in) throws IOException {
+      int start = 0;
+      int duration = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "start":
+            start = in.nextInt();
+            break;
+          case "duration":
+            duration = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return TimeRange.fromStartDuration(start, duration);
+    }
+  }
+
+  /** {@code {"title": "Event 1", "when": {...}, "attendees": ["Person A"]}} */
+  private static final class EventAdapter extends TypeAdapter<Event> {
+    @Override
+    public void write(JsonWriter out, Event event) throws IOException {
+      out.beginObject();
+      out.name("title").value(event.getTitle());
+      out.name("when");
+      TIME_RANGE_ADAPTER.write(out, event.getWhen());
+      out.name("attendees");
+      writeStrings(out, event.getAttendees());
+      out.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader in) throws IOException {
+      String title = null;
+      TimeRange when = null;
+      List<String> attendees = Collections.emptyList();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "title":
+            title = in.nextString();
+            break;
+          case "when":
+            when = TIME_RANGE_ADAPTER.read(in);
+            break;
+          case "attendees":
+            attendees = readStrings(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      try {
+        return new Event(title, when, attendees);
+      } catch (IllegalArgumentException e) {
+        throw new JsonParseException("Invalid event: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * {@code {"zone": "Europe/Paris", "start": "09:00", "end": "17:00", "days": ["MONDAY", ...]}}.
+   * Without {@code days}, the hours apply Monday to Friday.
+   */
+  private static final class WorkingHoursAdapter extends TypeAdapter<WorkingHours> {
+    @Override
+    public void write(JsonWriter out, WorkingHours hours) throws IOException {
+      out.beginObject();
+      out.name("zone").value(hours.getZone().getId());
+      out.name("start").value(hours.getStart().toString());
+      out.name("end").value(hours.getEnd().toString());
+      out.name("days");
+      out.beginArray();
+      for (DayOfWeek day : hours.getDays()) {
+        out.value(day.name());
+      }
+      out.endArray();
+      out.endObject();
+    }
+
+    @Override
+    public WorkingHours read(JsonReader in) throws IOException {
+      String zone = null;
+      String start = null;
+      String end = null;
+      List<String> days = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "zone":
+            zone = in.nextString();
+            break;
+          case "start":
+            start = in.nextString();
+            break;
+          case "end":
+            end = in.nextString();
+            break;
+          case "days":
+            days = readStrings(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      if (zone == null || start == null || end == null) {
+        throw new JsonParseException("Working hours need a zone, a start and an end");
+      }
+      try {
+        if (days == null) {
+          return WorkingHours.weekdays(ZoneId.of(zone), LocalTime.parse(start),
+              LocalTime.parse(end));
+        }
+        Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : days) {
+          daysOfWeek.add(DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT)));
+        }
+        return new WorkingHours(ZoneId.of(zone), LocalTime.parse(start), LocalTime.parse(end),
+            daysOfWeek);
+      } catch (DateTimeException | IllegalArgumentException e) {
+        throw new JsonParseException("Invalid working hours: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /** {@code {"pool": [{"name": "Room 1", "capacity": 8}, ...], "min_capacity": 8}} */
+  private static final class ResourceRequirementAdapter extends TypeAdapter<ResourceRequirement> {
+    @Override
+    public void write(JsonWriter out, ResourceRequirement requirement) throws IOException {
+      out.beginObject();
+      out.name("pool");
+      out.beginArray();
+      for (Resource resource : requirement.getPool()) {
+        out.beginObject();
+        out.name("name").value(resource.getName());
+        out.name("capacity").value(resource.getCapacity());
+        out.endObject();
+      }
+      out.endArray();
+      out.name("min_capacity").value(requirement.getMinCapacity());
+      out.endObject();
+    }
+
+    @Override
+    public ResourceRequirement read(JsonReader in) throws IOException {
+      List<Resource> pool = new ArrayList<>();
+      int minCapacity = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "pool":
+            in.beginArray();
+            while (in.hasNext()) {
+              pool.add(readResource(in));
+            }
+            in.endArray();
+            break;
+          case "min_capacity":
+            minCapacity = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new ResourceRequirement(pool, minCapacity);
+    }
+
+    private static Resource readResource(JsonReader in) throws IOException {
+      String name = null;
+      int capacity = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "name":
+            name = in.nextString();
+            break;
+          case "capacity":
+            capacity = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      try {
+        return new Resource(name, capacity);
+      } catch (IllegalArgumentException e) {
+        throw new JsonParseException("Invalid resource: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * {@code {"duration": 30, "attendees": [...], "optional_attendees": [...], "ranked_slots": 0,
+   * "min_optional_attendees": 0, "slot_granularity": 0, "slot_alignment": 0, "max_slots": 0,
+   * "working_hours": {"Person A": {...}}, "epoch": "1970-01-01T00:00:00Z",
+   * "resources": [{...}]}}
+   */
+  private static final class MeetingRequestAdapter extends TypeAdapter<MeetingRequest> {
+    @Override
+    public void write(JsonWriter out, MeetingRequest request) throws IOException {
+      out.beginObject();
+      out.name("duration").value(request.getDuration());
+      out.name("attendees");
+      writeStrings(out, request.getAttendees());
+      out.name("optional_attendees");
+      writeStrings(out, request.getOptionalAttendees());
+      out.name("ranked_slots").value(request.getRankedSlots());
+      out.name("min_optional_attendees").value(request.getMinOptionalAttendees());
+      out.name("slot_granularity").value(request.getSlotGranularity());
+      out.name("slot_alignment").value(request.getSlotAlignment());
+      out.name("max_slots").value(request.getMaxSlots());
+      out.name("working_hours");
+      out.beginObject();
+      for (Map.Entry<String, WorkingHours> entry : request.getWorkingHours().entrySet()) {
+        out.name(entry.getKey());
+        WORKING_HOURS_ADAPTER.write(out, entry.getValue());
+      }
+      out.endObject();
+      out.name("epoch").value(request.getEpoch().toString());
+      out.name("resources");
+      out.beginArray();
+      for (ResourceRequirement requirement : request.getResourceRequirements()) {
+        RESOURCE_REQUIREMENT_ADAPTER.write(out, requirement);
+      }
+      out.endArray();
+      out.endObject();
+    }
+
+    @Override
+    public MeetingRequest read(JsonReader in) throws IOException {
+      long duration = 0;
+      List<String> attendees = Collections.emptyList();
+      List<String> optionalAttendees = Collections.emptyList();
+      int rankedSlots = 0;
+      int minOptionalAttendees = 0;
+      int slotGranularity = 0;
+      int slotAlignment = 0;
+      int maxSlots = 0;
+      Map<String, WorkingHours> workingHours = Collections.emptyMap();
+      String epoch = null;
+      List<ResourceRequirement> resources = new ArrayList<>();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "duration":
+            duration = in.nextLong();
+            break;
+          case "attendees":
+            attendees = readStrings(in);
+            break;
+          case "optional_attendees":
+            optionalAttendees = readStrings(in);
+            break;
+          case "ranked_slots":
+            rankedSlots = in.nextInt();
+            break;
+          case "min_optional_attendees":
+            minOptionalAttendees = in.nextInt();
+            break;
+          case "slot_granularity":
+            slotGranularity = in.nextInt();
+            break;
+          case "slot_alignment":
+            slotAlignment = in.nextInt();
+            break;
+          case "max_slots":
+            maxSlots = in.nextInt();
+            break;
+          case "working_hours":
+            workingHours = readWorkingHours(in);
+            break;
+          case "epoch":
+            epoch = in.nextString();
+            break;
+          case "resources":
+            if (in.peek() == JsonToken.NULL) {
+              in.nextNull();
+              break;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+              resources.add(RESOURCE_REQUIREMENT_ADAPTER.read(in));
+            }
+            in.endArray();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+
+      MeetingRequest request = new MeetingRequest(attendees, duration);
+      for (String attendee : optionalAttendees) {
+        request.addOptionalAttendee(attendee);
+      }
+      try {
+        for (Map.Entry<String, WorkingHours> entry : workingHours.entrySet()) {
+          request.setWorkingHours(entry.getKey(), entry.getValue());
+        }
+        for (ResourceRequirement requirement : resources) {
+          request.addResourceRequirement(requirement);
+        }
+        request.setRanking(rankedSlots, minOptionalAttendees);
+        request.setSlotGrid(slotGranularity, slotAlignment);
+        request.setMaxSlots(maxSlots);
+        if (epoch != null) {
+          request.setEpoch(Instant.parse(epoch));
+        }
+      } catch (DateTimeException | IllegalArgumentException e) {
+        throw new JsonParseException("Invalid meeting request: " + e.getMessage(), e);
+      }
+      return request;
+    }
+  }
+}
@@ -0,0 +1,497 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.primitives.UnsignedBytes;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only calendar stored column by column in one file, which is memory-mapped rather than
+ * read. Opening it only reads the columns that point into other columns, to check that a corrupt
+ * file can't send a lookup out of bounds, and the events live in the page cache instead of on
+ * the heap. {@link #forDay} answers busy times straight from the mapped
+ * columns without creating an object per event; only {@link #getEvents} and
+ * {@link #getAllEvents} build {@code Event}s, and only for the events they return.
+ *
+ * <p>The file is a header of eight ints, then these sections, all big-endian:
+ *
+ * <ul>
+ *   <li>the start, duration and title string of each event, as three int columns sorted by start;
+ *   <li>offsets into the attendee column, one per event plus one, and the attendee column itself;
+ *   <li>each attendee's calendar: offsets, one per attendee plus one, into a column of event
+ *       indices in increasing order, and so by start;
+ *   <li>the string table: offsets, one per string plus one, into the UTF-8 bytes of every string.
+ *       Attendee {@code i} is string {@code i}, and attendees are sorted by their UTF-8 bytes so a
+ *       name is found by binary search. Titles follow, each stored once.
+ * </ul>
+ */
+public final class ColumnarEventFile implements EventSource {
+  private static final int MAGIC = 0x53505343;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_INTS = 8;
+  private static final int MINUTES_PER_DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  private static final Comparator<byte[]> UTF8_ORDER = UnsignedBytes.lexicographicalComparator();
+
+  private final int eventCount;
+  private final int attendeeCount;
+  // The longest event, so a lookup can start at the first event that could still be running.
+  private final int maxDuration;
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  private final IntBuffer titles;
+  private final IntBuffer attendeeOffsets;
+  private final IntBuffer attendees;
+  private final IntBuffer calendarOffsets;
+  private final IntBuffer calendars;
+  private final IntBuffer stringOffsets;
+  private final ByteBuffer strings;
+
+  private ColumnarEventFile(ByteBuffer file) throws IOException {
+    if (file.capacity() < HEADER_INTS * Integer.BYTES || file.getInt(0) != MAGIC) {
+      throw new IOException("Not an event file");
+    }
+    if (file.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Unknown event file version " + file.getInt(4));
+    }
+    eventCount = file.getInt(8);
+    attendeeCount = file.getInt(12);
+    int stringCount = file.getInt(16);
+    int attendeeIdCount = file.getInt(20);
+    maxDuration = file.getInt(24);
+    int stringBytes = file.getInt(28);
+
+    long expected = (long) Integer.BYTES * (HEADER_INTS + 3L * eventCount + eventCount + 1
+        + attendeeIdCount + attendeeCount + 1 + attendeeIdCount + stringCount + 1) + stringBytes;
+    if (eventCount < 0 || attendeeCount < 0 || stringCount < attendeeCount
+        || attendeeIdCount < 0 || stringBytes < 0 || expected != file.capacity()) {
+      throw new IOException("Truncated or corrupt event file");
+    }
+
+    int offset = HEADER_INTS * Integer.BYTES;
+    starts = ints(file, offset, eventCount);
+    durations = ints(file, offset += eventCount * Integer.BYTES, eventCount);
+    titles = ints(file, offset += eventCount * Integer.BYTES, eventCount);
+    attendeeOffsets = ints(file, offset += eventCount * Integer.BYTES, eventCount + 1);
+    attendees = ints(file, offset += (eventCount + 1) * Integer.BYTES, attendeeIdCount);
+    calendarOffsets = ints(file, offset += attendeeIdCount * Integer.BYTES, attendeeCount + 1);
+    calendars = ints(file, offset += (attendeeCount + 1) * Integer.BYTES, attendeeIdCount);
+    stringOffsets = ints(file, offset += attendeeIdCount * Integer.BYTES, stringCount + 1);
+    strings = slice(file, offset + (stringCount + 1) * Integer.BYTES, stringBytes);
+
+    checkOffsets(attendeeOffsets, attendeeIdCount);
+    checkOffsets(calendarOffsets, attendeeIdCount);
+    checkOffsets(stringOffsets, stringBytes);
+    checkIndices(titles, stringCount);
+    checkIndices(attendees, attendeeCount);
+    checkIndices(calendars, eventCount);
+  }
+
+  /**
+   * Checks that {@code offsets} start at 0, never go down and end at {@code end}, the length of
+   * the column they point into.
+   */
+  private static void checkOffsets(IntBuffer offsets, int end) throws IOException {
+    int previous = 0;
+    for (int i = 0; i < offsets.limit(); i++) {
+      int offset = offsets.get(i);
+      if (offset < previous || (i == 0 && offset != 0)) {
+        throw new IOException("Corrupt event file: offsets out of order");
+      }
+      previous = offset;
+    }
+    if (previous != end) {
+      throw new IOException("Corrupt event file: offsets run past their column");
+    }
+  }
+
+  /** Checks that every entry of {@code indices} is at least 0 and less than {@code count}. */
+  private static void checkIndices(IntBuffer indices, int count) throws IOException {
+    for (int i = 0; i < indices.limit(); i++) {
+      int index = indices.get(i);
+      if (index < 0 || index >= count) {
+        throw new IOException("Corrupt event file: index " + index + " out of bounds");
+      }
+    }
+  }
+
+  /**
+   * Maps the event file at {@code path}. The file must not be changed while it is mapped;
+   * {@link #write} replaces a file rather than changing it.
+   */
+  public static ColumnarEventFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is too large to map");
+      }
+      return new ColumnarEventFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code path} as an event file. The file is written next to
+   * {@code path} and then renamed over it, so a reader never maps half a file.
+   */
+  public static void write(Path path, Collection<Event> events) throws IOException {
+    List<Event> sorted = new ArrayList<>(events);
+    Collections.sort(sorted, Event.ORDER_BY_TIMERANGE_START_TIME);
+
+    // Attendees come first in the string table, in the order lookups search them.
+    Map<String, byte[]> encodedNames = new HashMap<>();
+    for (Event event : sorted) {
+      for (String attendee : event.getAttendees()) {
+        encodedNames.computeIfAbsent(attendee, name -> name.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    List<byte[]> stringTable = new ArrayList<>(encodedNames.values());
+    Collections.sort(stringTable, UTF8_ORDER);
+    Map<String, Integer> attendeeIds = new HashMap<>();
+    for (int i = 0; i < stringTable.size(); i++) {
+      attendeeIds.put(new String(stringTable.get(i), StandardCharsets.UTF_8), i);
+    }
+    int attendeeCount = stringTable.size();
+
+    Map<String, Integer> titleIds = new LinkedHashMap<>();
+    int[] titles = new int[sorted.size()];
+    int[] attendeeOffsets = new int[sorted.size() + 1];
+    int[] calendarSizes = new int[attendeeCount];
+    int maxDuration = 0;
+    for (int i = 0; i < sorted.size(); i++) {
+      Event event = sorted.get(i);
+      titles[i] = titleIds.computeIfAbsent(event.getTitle(), title -> {
+        stringTable.add(title.getBytes(StandardCharsets.UTF_8));
+        return stringTable.size() - 1;
+      });
+      attendeeOffsets[i + 1] = attendeeOffsets[i] + event.getAttendees().size();
+      for (String attendee : event.getAttendees()) {
+        calendarSizes[attendeeIds.get(attendee)]++;
+      }
+      maxDuration = Math.max(maxDuration, event.getWhen().duration());
+    }
+
+    int[] calendarOffsets = new int[attendeeCount + 1];
+    for (int i = 0; i < attendeeCount; i++) {
+      calendarOffsets[i + 1] = calendarOffsets[i] + calendarSizes[i];
+    }
+    int[] attendees = new int[attendeeOffsets[sorted.size()]];
+    int[] calendars = new int[attendees.length];
+    int[] calendarEnds = Arrays.copyOf(calendarOffsets, attendeeCount);
+    for (int i = 0; i < sorted.size(); i++) {
+      int[] ids = new int[sorted.get(i).getAttendees().size()];
+      int count = 0;
+      for (String attendee : sorted.get(i).getAttendees()) {
+        ids[count++] = attendeeIds.get(attendee);
+      }
+      Arrays.sort(ids);
+      int position = attendeeOffsets[i];
+      for (int id : ids) {
+        attendees[position++] = id;
+        calendars[calendarEnds[id]++] = i;
+      }
+    }
+
+    long stringBytes = 0;
+    for (byte[] string : stringTable) {
+      stringBytes += string.length;
+    }
+    long size = (long) Integer.BYTES * (HEADER_INTS + 4L * sorted.size() + 1
+        + 2L * attendees.length + attendeeCount + 1 + stringTable.size() + 1) + stringBytes;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Too many events for one file: " + size + " bytes");
+    }
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel)));
+      writeInts(out, MAGIC, FORMAT_VERSION, sorted.size(), attendeeCount, stringTable.size(),
+          attendees.length, maxDuration, (int) stringBytes);
+      for (Event event : sorted) {
+        out.writeInt(event.getWhen().start());
+      }
+      for (Event event : sorted) {
+        out.writeInt(event.getWhen().duration());
+      }
+      writeInts(out, titles);
+      writeInts(out, attendeeOffsets);
+      writeInts(out, attendees);
+      writeInts(out, calendarOffsets);
+      writeInts(out, calendars);
+      int stringOffset = 0;
+      out.writeInt(stringOffset);
+      for (byte[] string : stringTable) {
+        out.writeInt(stringOffset += string.length);
+      }
+      for (byte[] string : stringTable) {
+        out.write(string);
+      }
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Returns how many events the file holds.
+   */
+  public int size() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the busy times on {@code day} in minutes from the start of that day, ready for
+   * {@link FindMeetingQuery#query(BusyTimes, MeetingRequest, long)}. Each lookup reads only the
+   * calendars of the attendees asked about, from the first event that could still be running
+   * when the day starts, and can be used from several threads at once.
+   */
+  public BusyTimes forDay(long day) {
+    long dayStart = day * MINUTES_PER_DAY;
+    return attendeeNames -> getBusyTimes(attendeeNames, dayStart, dayStart + MINUTES_PER_DAY);
+  }
+
+  private List<TimeRange> getBusyTimes(Collection<String> attendeeNames, long from, long to) {
+    // Each busy time is packed as its start and end, relative to {@code from}, in one long, so
+    // sorting the longs sorts the times by start without an object per event.
+    long[] busy = new long[16];
+    int count = 0;
+    for (String name : attendeeNames) {
+      int attendee = findAttendee(name);
+      if (attendee < 0) {
+        continue;
+      }
+      int end = calendarOffsets.get(attendee + 1);
+      for (int i = firstRunningAt(attendee, from); i < end; i++) {
+        int event = calendars.get(i);
+        long start = starts.get(event);
+        if (start >= to) {
+          break;
+        }
+        long stop = start + durations.get(event);
+        if (stop <= from) {
+          continue;
+        }
+        if (count == busy.length) {
+          busy = Arrays.copyOf(busy, count * 2);
+        }
+        busy[count++] = (Math.max(start, from) - from) << 32 | (Math.min(stop, to) - from);
+      }
+    }
+    Arrays.sort(busy, 0, count);
+
+    List<TimeRange> merged = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      AttendeeIndex.append(merged,
+          TimeRange.fromStartEnd((int) (busy[i] >>> 32), (int) busy[i], false));
+    }
+    return merged;
+  }
+
+  @Override
+  public Collection<Event> getEvents(Collection<String> attendeeNames, LongTimeRange window) {
+    int[] found = new int[16];
+    int count = 0;
+    for (String name : attendeeNames) {
+      int attendee = findAttendee(name);
+      if (attendee < 0) {
+        continue;
+      }
+      int end = calendarOffsets.get(attendee + 1);
+      for (int i = firstRunningAt(attendee, window.start()); i < end; i++) {
+        int event = calendars.get(i);
+        if (starts.get(event) >= window.end()) {
+          break;
+        }
+        if ((long) starts.get(event) + durations.get(event) > window.start()) {
+          if (count == found.length) {
+            found = Arrays.copyOf(found, count * 2);
+          }
+          found[count++] = event;
+        }
+      }
+    }
+
+    // An event shared by several of the attendees is returned once.
+    Arrays.sort(found, 0, count);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      if (i == 0 || found[i] != found[i - 1]) {
+        events.add(getEvent(found[i]));
+      }
+    }
+    return events;
+  }
+
+  @Override
+  public Collection<Event> getAllEvents() {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      events.add(getEvent(i));
+    }
+    return events;
+  }
+
+  /**
+   * Returns 0: the file never changes.
+   */
+  @Override
+  public long getVersion() {
+    return 0;
+  }
+
+  /**
+   * Returns true: the file never changes.
+   */
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  /**
+   * Throws {@code UnsupportedOperationException}, since the file is read-only. Callers check
+   * {@link #isReadOnly} first.
+   */
+  @Override
+  public void addEvent(Event event) {
+    throw new UnsupportedOperationException("Event files are read-only");
+  }
+
+  /**
+   * Throws {@code UnsupportedOperationException}, since the file is read-only. Callers check
+   * {@link #isReadOnly} first.
+   */
+  @Override
+  public void removeEvent(Event event) {
+    throw new UnsupportedOperationException("Event files are read-only");
+  }
+
+  /**
+   * Throws {@code UnsupportedOperationException}, since the file is read-only. Callers check
+   * {@link #isReadOnly} first.
+   */
+  @Override
+  public void updateEvent(Event oldEvent, Event newEvent) {
+    throw new UnsupportedOperationException("Event files are read-only");
+  }
+
+  /**
+   * Returns the position in {@code attendee}'s calendar of the first event that starts late
+   * enough to still be running at {@code minute}.
+   */
+  private int firstRunningAt(int attendee, long minute) {
+    long earliestStart = minute - maxDuration;
+    int low = calendarOffsets.get(attendee);
+    int high = calendarOffsets.get(attendee + 1);
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts.get(calendars.get(middle)) < earliestStart) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Returns the ID of the attendee called {@code name}, or -1 if no event has them. */
+  private int findAttendee(String name) {
+    byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = attendeeCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int order = compareString(middle, encoded);
+      if (order < 0) {
+        low = middle + 1;
+      } else if (order > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /** Compares string {@code id} to {@code encoded} by their unsigned UTF-8 bytes. */
+  private int compareString(int id, byte[] encoded) {
+    int start = stringOffsets.get(id);
+    int length = stringOffsets.get(id + 1) - start;
+    for (int i = 0; i < Math.min(length, encoded.length); i++) {
+      int order = UnsignedBytes.compare(strings.get(start + i), encoded[i]);
+      if (order != 0) {
+        return order;
+      }
+    }
+    return Integer.compare(length, encoded.length);
+  }
+
+  private String getString(int id) {
+    int start = stringOffsets.get(id);
+    byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = strings.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private Event getEvent(int event) {
+    int from = attendeeOffsets.get(event);
+    int to = attendeeOffsets.get(event + 1);
+    List<String> names = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      names.add(getString(attendees.get(i)));
+    }
+    return new Event(getString(titles.get(event)),
+        TimeRange.fromStartDuration(starts.get(event), durations.get(event)), names);
+  }
+
+  private static IntBuffer ints(ByteBuffer file, int offset, int count) {
+    return slice(file, offset, count * Integer.BYTES).asIntBuffer();
+  }
+
+  private static ByteBuffer slice(ByteBuffer file, int offset, int length) {
+    ByteBuffer view = file.duplicate();
+    view.position(offset);
+    view.limit(offset + length);
+    return view.slice();
+  }
+
+  private static void writeInts(DataOutputStream out, int... values) throws IOException {
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+}
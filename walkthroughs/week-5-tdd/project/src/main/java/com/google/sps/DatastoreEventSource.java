@@ -0,0 +1,230 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.PreparedQuery;
+import com.google.appengine.api.datastore.PropertyProjection;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.CompositeFilterOperator;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.QueryResultList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@code EventSource} that stores each event as one Datastore entity, along with the list of
+ * days it touches. A lookup runs one query per attendee asked about and per day of the window,
+ * matching both by equality, and reads the results a page at a time with cursors. Loading a day
+ * therefore reads only that day's events, however many the attendee has on other days. The
+ * queries project only the title and times, so the attendee lists of the matching events are
+ * never read.
+ *
+ * <p>The queries need a composite index on {@code attendees}, {@code days} and then
+ * {@code end}, {@code start} and {@code title}. Events stored without {@code days} are not found
+ * by lookups. The version only counts changes made through this object, not writes to Datastore
+ * from elsewhere.
+ */
+public final class DatastoreEventSource implements EventSource {
+  static final String KIND = "Event";
+  static final String TITLE = "title";
+  static final String START = "start";
+  static final String END = "end";
+  static final String ATTENDEES = "attendees";
+  static final String DAYS = "days";
+
+  private static final int DEFAULT_PAGE_SIZE = 500;
+
+  private final DatastoreService datastore;
+  private final int pageSize;
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Creates a source over the application's Datastore.
+   */
+  public DatastoreEventSource() {
+    this(DatastoreServiceFactory.getDatastoreService(), DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * Creates a source over {@code datastore} that reads at most {@code pageSize} entities per
+   * round trip.
+   */
+  public DatastoreEventSource(DatastoreService datastore, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("pageSize must be positive");
+    }
+
+    this.datastore = datastore;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Each returned event lists only the attendees in {@code attendees} who attend it.
+   */
+  @Override
+  public Collection<Event> getEvents(Collection<String> attendees, LongTimeRange window) {
+    // An event shared by several of the attendees is returned once, with all of them.
+    Map<Key, Entity> found = new LinkedHashMap<>();
+    Map<Key, Set<String>> foundAttendees = new LinkedHashMap<>();
+    long firstDay = LongTimeRange.dayOf(window.start());
+    long lastDay = LongTimeRange.dayOf(Math.max(window.start(), window.end() - 1));
+    for (String attendee : attendees) {
+      for (long day = firstDay; day <= lastDay; day++) {
+        PreparedQuery query = datastore.prepare(newQuery(attendee, day));
+        FetchOptions options = FetchOptions.Builder.withLimit(pageSize);
+        while (true) {
+          QueryResultList<Entity> page = query.asQueryResultList(options);
+          for (Entity entity : page) {
+            // Every event found touches the day, but may fall outside a window that starts or
+            // ends partway through it.
+            if (startOf(entity) >= window.end() || endOf(entity) <= window.start()) {
+              continue;
+            }
+            found.putIfAbsent(entity.getKey(), entity);
+            foundAttendees.computeIfAbsent(entity.getKey(), key -> new HashSet<>())
+                .add(attendee);
+          }
+          if (page.size() < pageSize) {
+            break;
+          }
+          options = FetchOptions.Builder.withLimit(pageSize).startCursor(page.getCursor());
+        }
+      }
+    }
+
+    List<Event> events = new ArrayList<>(found.size());
+    for (Entity entity : found.values()) {
+      events.add(new Event(titleOf(entity), whenOf(entity), foundAttendees.get(entity.getKey())));
+    }
+    return events;
+  }
+
+  @Override
+  public Collection<Event> getAllEvents() {
+    PreparedQuery query = datastore.prepare(new Query(KIND));
+    List<Event> events = new ArrayList<>();
+    FetchOptions options = FetchOptions.Builder.withLimit(pageSize);
+    while (true) {
+      QueryResultList<Entity> page = query.asQueryResultList(options);
+      for (Entity entity : page) {
+        events.add(new Event(titleOf(entity), whenOf(entity), attendeesOf(entity)));
+      }
+      if (page.size() < pageSize) {
+        return events;
+      }
+      options = FetchOptions.Builder.withLimit(pageSize).startCursor(page.getCursor());
+    }
+  }
+
+  @Override
+  public long getVersion() {
+    return version.get();
+  }
+
+  @Override
+  public void addEvent(Event event) {
+    Entity entity = new Entity(KIND);
+    entity.setProperty(TITLE, event.getTitle());
+    entity.setProperty(START, (long) event.getWhen().start());
+    entity.setProperty(END, (long) event.getWhen().end());
+    entity.setProperty(ATTENDEES, new ArrayList<>(event.getAttendees()));
+    entity.setProperty(DAYS, daysOf(event.getWhen()));
+    datastore.put(entity);
+    version.incrementAndGet();
+  }
+
+  @Override
+  public void removeEvent(Event event) {
+    Query query = new Query(KIND).setFilter(CompositeFilterOperator.and(
+        new FilterPredicate(TITLE, FilterOperator.EQUAL, event.getTitle()),
+        new FilterPredicate(START, FilterOperator.EQUAL, (long) event.getWhen().start()),
+        new FilterPredicate(END, FilterOperator.EQUAL, (long) event.getWhen().end())));
+    for (Entity entity : datastore.prepare(query).asIterable()) {
+      if (attendeesOf(entity).equals(event.getAttendees())) {
+        datastore.delete(entity.getKey());
+        version.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  private static Query newQuery(String attendee, long day) {
+    return new Query(KIND)
+        .setFilter(CompositeFilterOperator.and(
+            new FilterPredicate(ATTENDEES, FilterOperator.EQUAL, attendee),
+            new FilterPredicate(DAYS, FilterOperator.EQUAL, day)))
+        .addProjection(new PropertyProjection(TITLE, String.class))
+        .addProjection(new PropertyProjection(START, Long.class))
+        .addProjection(new PropertyProjection(END, Long.class));
+  }
+
+  /** Returns every day that {@code when} touches, an empty range touching the day it starts. */
+  private static List<Long> daysOf(TimeRange when) {
+    long lastDay = LongTimeRange.dayOf(Math.max(when.start(), when.end() - 1));
+    List<Long> days = new ArrayList<>();
+    for (long day = LongTimeRange.dayOf(when.start()); day <= lastDay; day++) {
+      days.add(day);
+    }
+    return days;
+  }
+
+  private static TimeRange whenOf(Entity entity) {
+    return TimeRange.fromStartEnd((int) startOf(entity), (int) endOf(entity), false);
+  }
+
+  private static String titleOf(Entity entity) {
+    return entity.getProperty(TITLE).toString();
+  }
+
+  private static long startOf(Entity entity) {
+    return longProperty(entity, START);
+  }
+
+  private static long endOf(Entity entity) {
+    return longProperty(entity, END);
+  }
+
+  /** Datastore stores every integer as a {@code Long}. */
+  private static long longProperty(Entity entity, String name) {
+    return ((Number) entity.getProperty(name)).longValue();
+  }
+
+  private static Set<String> attendeesOf(Entity entity) {
+    // Datastore drops empty lists, so an event nobody attends has no attendees property.
+    Set<String> attendees = new HashSet<>();
+    Object stored = entity.getProperty(ATTENDEES);
+    if (stored instanceof Collection) {
+      for (Object attendee : (Collection<?>) stored) {
+        attendees.add(attendee.toString());
+      }
+    }
+    return attendees;
+  }
+
+}
@@ -0,0 +1,268 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The busy minutes of one day stored as a bitmap, one bit per minute. A whole day fits in 23
+ * longs, so combining calendars is a word-wide OR and free slots are found by scanning for runs
+ * of clear bits rather than by comparing {@code TimeRange} objects. Convert to and from
+ * {@code TimeRange} only at the edges.
+ */
+public final class DayOccupancy {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+  private static final int WORDS = (MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  // Bit {@code m % 64} of {@code words[m / 64]} is set if minute {@code m} is busy. Bits past the
+  // end of the day are always clear.
+  private final long[] words = new long[WORDS];
+
+  /**
+   * Creates an occupancy where every minute of the day is free.
+   */
+  public DayOccupancy() {}
+
+  /**
+   * Creates an occupancy where the minutes in each of {@code busyTimes} are busy.
+   */
+  public static DayOccupancy of(Collection<TimeRange> busyTimes) {
+    DayOccupancy occupancy = new DayOccupancy();
+    for (TimeRange when : busyTimes) {
+      occupancy.markBusy(when);
+    }
+    return occupancy;
+  }
+
+  /**
+   * Builds one occupancy per attendee from {@code events}.
+   */
+  public static Map<String, DayOccupancy> byAttendee(Collection<Event> events) {
+    Map<String, DayOccupancy> occupancies = new HashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        occupancies.computeIfAbsent(attendee, key -> new DayOccupancy()).markBusy(event.getWhen());
+      }
+    }
+    return occupancies;
+  }
+
+  /**
+   * Marks every minute in {@code when} as busy. Minutes outside of the day are ignored.
+   */
+  public void markBusy(TimeRange when) {
+    mark(when, true);
+  }
+
+  /**
+   * Marks every minute in {@code when} as free. Minutes outside of the day are ignored.
+   */
+  public void markFree(TimeRange when) {
+    mark(when, false);
+  }
+
+  private void mark(TimeRange when, boolean busy) {
+    int start = Math.max(when.start(), TimeRange.START_OF_DAY);
+    int end = Math.min(when.end(), MINUTES_PER_DAY);
+    if (start >= end) {
+      return;
+    }
+
+    int firstWord = start / Long.SIZE;
+    int lastWord = (end - 1) / Long.SIZE;
+    // Shifts only use the low six bits, so these select from {@code start} up and below
+    // {@code end} within their words.
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> -end;
+    if (firstWord == lastWord) {
+      set(firstWord, firstMask & lastMask, busy);
+      return;
+    }
+
+    set(firstWord, firstMask, busy);
+    Arrays.fill(words, firstWord + 1, lastWord, busy ? -1L : 0L);
+    set(lastWord, lastMask, busy);
+  }
+
+  private void set(int word, long mask, boolean busy) {
+    words[word] = busy ? words[word] | mask : words[word] & ~mask;
+  }
+
+  /**
+   * Marks every minute that is busy in {@code other} as busy in this occupancy too.
+   */
+  public void or(DayOccupancy other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= other.words[i];
+    }
+  }
+
+  /**
+   * Marks every minute of the day as free.
+   */
+  public void clear() {
+    Arrays.fill(words, 0);
+  }
+
+  /**
+   * Returns true if {@code minute} is busy.
+   */
+  public boolean isBusy(int minute) {
+    return (words[minute / Long.SIZE] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns true if every minute in {@code when} is free. Minutes outside of the day count as
+   * free.
+   */
+  public boolean isFree(TimeRange when) {
+    int start = Math.max(when.start(), TimeRange.START_OF_DAY);
+    int end = Math.min(when.end(), MINUTES_PER_DAY);
+    return start >= end || nextBusy(start) >= end;
+  }
+
+  /**
+   * Returns true if no minute of the day is busy.
+   */
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the free runs of the day that are at least {@code duration} minutes long, in order.
+   */
+  public List<TimeRange> getFreeTimes(long duration) {
+    IntervalBuffer freeTimes = new IntervalBuffer();
+    getFreeTimes(duration, freeTimes);
+    return freeTimes.toTimeRanges();
+  }
+
+  /**
+   * Adds the free runs of the day that are at least {@code duration} minutes long to
+   * {@code freeTimes}, in order.
+   */
+  public void getFreeTimes(long duration, IntervalBuffer freeTimes) {
+    getFreeTimes(duration, 0, freeTimes);
+  }
+
+  /**
+   * Same as {@link #getFreeTimes(long, IntervalBuffer)}, but adds {@code offset} to every run,
+   * for example to place the day on a multi-day calendar.
+   */
+  public void getFreeTimes(long duration, int offset, IntervalBuffer freeTimes) {
+    int start = nextFree(0);
+    while (start < MINUTES_PER_DAY) {
+      int end = nextBusy(start);
+      freeTimes.addGap(offset + start, offset + end, duration);
+      start = nextFree(end);
+    }
+  }
+
+  /**
+   * Adds the busy runs of the day to {@code busyTimes}, in order.
+   */
+  void getBusyTimes(IntervalBuffer busyTimes) {
+    int start = nextBusy(0);
+    while (start < MINUTES_PER_DAY) {
+      int end = nextFree(start);
+      busyTimes.add(start, end);
+      start = nextBusy(end);
+    }
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or the end of the day if there is
+   * none. Whole busy words are skipped at once.
+   */
+  private int nextFree(int from) {
+    int i = from / Long.SIZE;
+    if (i >= WORDS) {
+      return MINUTES_PER_DAY;
+    }
+
+    long free = ~words[i] & (-1L << from);
+    while (free == 0) {
+      if (++i == WORDS) {
+        return MINUTES_PER_DAY;
+      }
+      free = ~words[i];
+    }
+    return Math.min(i * Long.SIZE + Long.numberOfTrailingZeros(free), MINUTES_PER_DAY);
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or the end of the day if there is
+   * none. Whole free words are skipped at once.
+   */
+  private int nextBusy(int from) {
+    int i = from / Long.SIZE;
+    if (i >= WORDS) {
+      return MINUTES_PER_DAY;
+    }
+
+    long busy = words[i] & (-1L << from);
+    while (busy == 0) {
+      if (++i == WORDS) {
+        return MINUTES_PER_DAY;
+      }
+      busy = words[i];
+    }
+    return i * Long.SIZE + Long.numberOfTrailingZeros(busy);
+  }
+
+  /**
+   * Returns the combined occupancy of {@code attendees}. Attendees without an occupancy in
+   * {@code occupancies} are free all day.
+   */
+  static DayOccupancy union(Map<String, DayOccupancy> occupancies, Collection<String> attendees) {
+    DayOccupancy union = new DayOccupancy();
+    union(occupancies, attendees, union);
+    return union;
+  }
+
+  /**
+   * Same as {@link #union(Map, Collection)}, but overwrites {@code union} instead of creating a
+   * new occupancy.
+   */
+  static void union(Map<String, DayOccupancy> occupancies, Collection<String> attendees,
+      DayOccupancy union) {
+    union.clear();
+    for (String attendee : attendees) {
+      DayOccupancy occupancy = occupancies.get(attendee);
+      if (occupancy != null) {
+        union.or(occupancy);
+      }
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof DayOccupancy && Arrays.equals(words, ((DayOccupancy) other).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+}
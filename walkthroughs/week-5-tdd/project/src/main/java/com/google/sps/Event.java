@@ -27,7 +27,12 @@ import java.util.Comparator;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  private final Set<String> attendees;
+  // The attendees' IDs in the default {@code AttendeeDictionary}, sorted, or null until they are
+  // first needed. Only events that a calendar holds or a query sweeps are interned, so events
+  // built just to be stored or sent never grow the dictionary. Transient so that the IDs, which
+  // only mean something inside this process, are not sent as JSON.
+  private transient volatile int[] attendeeIds;
 
   /**
    * Creates a new event.
@@ -51,7 +56,22 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = new HashSet<>(attendees);
+  }
+
+  private Event(Event template, TimeRange when) {
+    this.title = template.title;
+    this.when = when;
+    this.attendees = template.attendees;
+    this.attendeeIds = template.internAttendees();
+  }
+
+  /**
+   * Returns the same event held at {@code when}. The copy shares this event's attendees, which
+   * can't change, so repeating an event costs only the new {@code TimeRange}.
+   */
+  Event movedTo(TimeRange when) {
+    return new Event(this, when);
   }
     /**
    * A comparator for sorting events by their time range start time in ascending order.
@@ -86,6 +106,39 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns true if at least one of {@code people} is attending this event. Unlike intersecting
+   * the sets, this allocates nothing and stops at the first match.
+   */
+  public boolean hasAnyAttendee(Collection<String> people) {
+    return !Collections.disjoint(attendees, people);
+  }
+
+  /**
+   * Returns true if at least one of {@code people}, given as IDs in the default
+   * {@code AttendeeDictionary}, is attending this event. This compares ints only, however many
+   * attendees the event has. The event is interned first if it hasn't been; intern it before
+   * looking up {@code people}, or names it adds to the dictionary are missing from the set.
+   */
+  public boolean hasAnyAttendee(AttendeeIdSet people) {
+    return people.intersectsAny(internAttendees());
+  }
+
+  /**
+   * Interns the attendees into the default {@code AttendeeDictionary}, unless that was done
+   * already, and returns their sorted IDs. Calendars call this when they take in an event, so
+   * that a request's names can then be looked up with {@link AttendeeDictionary#find} without
+   * growing the dictionary.
+   */
+  int[] internAttendees() {
+    int[] ids = attendeeIds;
+    if (ids == null) {
+      ids = AttendeeDictionary.getDefault().intern(attendees);
+      attendeeIds = ids;
+    }
+    return ids;
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable list of events sorted with {@link Event#ORDER_BY_TIMERANGE_START_TIME}, which
+ * {@code FindMeetingQuery} can sweep without copying or sorting. A snapshot is sorted once when
+ * it is built; a change makes a new snapshot by copying the list and putting the event in its
+ * place, and leaves the old one as it was. Holders publish the new snapshot through a volatile
+ * field, so readers never lock and never see a half-made change. Every event's attendees are
+ * interned as it enters a snapshot, so sweeping one never grows the {@code AttendeeDictionary}.
+ */
+public final class EventSnapshot {
+  private static final EventSnapshot EMPTY = new EventSnapshot(Collections.emptyList());
+
+  private final List<Event> events;
+
+  private EventSnapshot(List<Event> sortedEvents) {
+    this.events = Collections.unmodifiableList(sortedEvents);
+  }
+
+  /**
+   * Returns the snapshot without any events.
+   */
+  public static EventSnapshot empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns a snapshot of {@code events}, sorted by start time.
+   */
+  public static EventSnapshot of(Collection<Event> events) {
+    List<Event> sorted = new ArrayList<>(events);
+    for (Event event : sorted) {
+      event.internAttendees();
+    }
+    Collections.sort(sorted, Event.ORDER_BY_TIMERANGE_START_TIME);
+    return new EventSnapshot(sorted);
+  }
+
+  /**
+   * Returns the events sorted by start time. The list can't be modified.
+   */
+  public List<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * Returns how many events the snapshot holds.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns a snapshot that also holds {@code event}, after any events that start at the same
+   * time.
+   */
+  public EventSnapshot with(Event event) {
+    event.internAttendees();
+    int index = Collections.binarySearch(events, event, Event.ORDER_BY_TIMERANGE_START_TIME);
+    // Skip past every event with the same start, so events that start together keep the order
+    // they were added in.
+    index = index < 0 ? -index - 1 : index;
+    while (index < events.size()
+        && Event.ORDER_BY_TIMERANGE_START_TIME.compare(events.get(index), event) == 0) {
+      index++;
+    }
+
+    List<Event> changed = new ArrayList<>(events.size() + 1);
+    changed.addAll(events.subList(0, index));
+    changed.add(event);
+    changed.addAll(events.subList(index, events.size()));
+    return new EventSnapshot(changed);
+  }
+
+  /**
+   * Returns a snapshot without one event equal to {@code event}, or this snapshot if it holds
+   * none.
+   */
+  public EventSnapshot without(Event event) {
+    int index = events.indexOf(event);
+    if (index < 0) {
+      return this;
+    }
+
+    List<Event> changed = new ArrayList<>(events);
+    changed.remove(index);
+    return new EventSnapshot(changed);
+  }
+}
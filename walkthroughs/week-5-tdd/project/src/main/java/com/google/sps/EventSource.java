@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+
+/**
+ * Where events come from. Callers ask only for the attendees and the time they care about, so a
+ * source backed by storage never has to load the whole calendar. Event times are read as minutes
+ * from the same epoch as {@code LongTimeRange}.
+ */
+public interface EventSource {
+  /**
+   * Returns every event that at least one of {@code attendees} attends and that overlaps
+   * {@code window}, in no particular order. An event only needs to list the attendees that were
+   * asked about.
+   */
+  Collection<Event> getEvents(Collection<String> attendees, LongTimeRange window);
+
+  /**
+   * Returns every event in the source, in no particular order.
+   */
+  Collection<Event> getAllEvents();
+
+  /**
+   * Returns every event in the source, sorted by start time. Sources that keep their events in
+   * memory return a snapshot they already hold; others sort the events on every call.
+   */
+  default EventSnapshot getSnapshot() {
+    return EventSnapshot.of(getAllEvents());
+  }
+
+  /**
+   * Returns a number that changes whenever an event is added or removed through this source, so
+   * that anything built from the events can tell whether it is out of date.
+   */
+  long getVersion();
+
+  /**
+   * Returns true if the events can't be changed through this source, so that callers can turn
+   * away a change before they make it. The change methods of a read-only source must not be
+   * called.
+   */
+  default boolean isReadOnly() {
+    return false;
+  }
+
+  /**
+   * Adds {@code event} to the source. The source must not be read-only.
+   */
+  void addEvent(Event event);
+
+  /**
+   * Removes one event equal to {@code event} from the source, if there is one. The source must
+   * not be read-only.
+   */
+  void removeEvent(Event event);
+
+  /**
+   * Replaces one event equal to {@code oldEvent}, if there is one, with {@code newEvent}. The
+   * source must not be read-only. Sources that can make both changes at once override this.
+   */
+  default void updateEvent(Event oldEvent, Event newEvent) {
+    removeEvent(oldEvent);
+    addEvent(newEvent);
+  }
+}
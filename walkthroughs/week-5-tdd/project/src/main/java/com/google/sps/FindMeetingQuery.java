@@ -14,19 +14,75 @@
 
 package com.google.sps;
 
-import com.google.common.collect.Sets; 
-import com.google.common.collect.Sets.SetView;
+import com.google.common.collect.Iterables;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /** FindMeetingQuery is the container class for the public method query. */
 public final class FindMeetingQuery {
+    private static final LongTimeRange WHOLE_DAY = LongTimeRange.wholeDay(0);
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Below this many attendees, splitting the merge costs more than it saves. See 
+    // ParallelMergeBenchmark in the benchmarks module to find the crossover on a given machine.
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    // Null when the query records nothing.
+    private final QueryMetrics metrics;
+
+    /**
+    * Creates a query that merges the calendars of large requests on the common fork/join pool.
+    */
+    public FindMeetingQuery() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+    * Same as {@link #FindMeetingQuery()}, but records the time of each phase and the work done 
+    * in {@code metrics}.
+    */
+    public FindMeetingQuery(QueryMetrics metrics) {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD, metrics);
+    }
+
+    /**
+    * Same as {@link #FindMeetingQuery(QueryMetrics)}, but merges on {@code pool}. Servers 
+    * should give queries a pool of their own rather than share the common pool.
+    */
+    public FindMeetingQuery(ForkJoinPool pool, QueryMetrics metrics) {
+        this(pool, DEFAULT_PARALLEL_THRESHOLD, metrics);
+    }
+
+    /**
+    * Creates a query that merges the calendars of large requests on {@code pool}.
+    *
+    * @param parallelThreshold the fewest attendees in one group, mandatory or optional, for 
+    *                          which {@link #query(BusyTimes, MeetingRequest)} merges that 
+    *                          group in parallel. Use {@code Integer.MAX_VALUE} to always merge 
+    *                          on the calling thread.
+    */
+    public FindMeetingQuery(ForkJoinPool pool, int parallelThreshold) {
+        this(pool, parallelThreshold, null);
+    }
+
+    /**
+    * Same as {@link #FindMeetingQuery(ForkJoinPool, int)}, but records the time of each phase 
+    * and the work done in {@code metrics}, unless it is null.
+    */
+    public FindMeetingQuery(ForkJoinPool pool, int parallelThreshold, QueryMetrics metrics) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.metrics = metrics;
+    }
 
     /**
     * Finds the timeslots that are available for both mandatory and optional attendees. 
@@ -40,144 +96,699 @@ public final class FindMeetingQuery {
     *                optional attendees, and duration for the requested event.
     */
     public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-        List<Event> eventsList = new ArrayList(events);
+        long started = startTimer();
+        EventSnapshot snapshot = EventSnapshot.of(events);
+        stopTimer(QueryMetrics.Phase.SORT, started);
+        return query(snapshot, request);
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest)}, but skips the copy and sort. Use this to 
+    * answer many requests against the same events, sorting them only once.
+    *
+    * @param sortedEvents events already sorted with {@link Event#ORDER_BY_TIMERANGE_START_TIME}.
+    *                     The list is only read, so it can be shared between threads.
+    */
+    public Collection<TimeRange> querySorted(List<Event> sortedEvents, MeetingRequest request) {
+        internAll(sortedEvents);
+        return sweepInterned(sortedEvents, request);
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest)}, but sweeps the events of 
+    * {@code snapshot}, which are already sorted, so nothing is copied or sorted.
+    */
+    public Collection<TimeRange> query(EventSnapshot snapshot, MeetingRequest request) {
+        return sweepInterned(snapshot.getEvents(), request);
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest, LongTimeRange)}, but sweeps the events of 
+    * {@code snapshot}, which are already sorted, so nothing is copied or sorted.
+    */
+    public List<LongTimeRange> query(EventSnapshot snapshot, MeetingRequest request, 
+                                     LongTimeRange window) {
+        return sweepInterned(snapshot.getEvents(), request, window);
+    }
+
+    /**
+    * Finds the timeslots inside {@code window} that are available for the attendees of 
+    * {@code request}, where the {@code TimeRange} of every event is read as minutes from the 
+    * same epoch as {@code window}. Each day of the window is answered exactly like 
+    * {@link #query(Collection, MeetingRequest)} answers a single day, including the fallback to 
+    * mandatory attendees only, so timeslots never cross midnight. All days are found in one pass 
+    * over the events.
+    *
+    * @param window the minutes to search, which may cover any number of days. Like event times, 
+    *               it must fit in an {@code int}.
+    */
+    public List<LongTimeRange> query(Collection<Event> events, MeetingRequest request, 
+                                     LongTimeRange window) {
+        long started = startTimer();
 
-        // EventsList must be sorted so the three TimeRanges can be populated 
-        // starting from the beginning to end of day.
-        Collections.sort(eventsList, Event.ORDER_BY_TIMERANGE_START_TIME);
+        // The events must be sorted so the sweep below can close each busy window 
+        // as soon as the next event starts after it.
+        EventSnapshot snapshot = EventSnapshot.of(events);
+        stopTimer(QueryMetrics.Phase.SORT, started);
+
+        return query(snapshot, request, window);
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest, LongTimeRange)}, but skips the copy and 
+    * sort.
+    *
+    * @param sortedEvents events already sorted with {@link Event#ORDER_BY_TIMERANGE_START_TIME}.
+    */
+    public List<LongTimeRange> querySorted(List<Event> sortedEvents, MeetingRequest request, 
+                                           LongTimeRange window) {
+        internAll(sortedEvents);
+        return sweepInterned(sortedEvents, request, window);
+    }
+
+    /** Sweeps {@code sortedEvents}, whose attendees are already interned, over one day. */
+    private Collection<TimeRange> sweepInterned(List<Event> sortedEvents, MeetingRequest request) {
+        Scratch scratch = SCRATCH.get();
+        sweep(sortedEvents, request, WHOLE_DAY, metrics, scratch);
+        return emit(scratch.timeRanges.toTimeRanges());
+    }
+
+    /** Sweeps {@code sortedEvents}, whose attendees are already interned, over {@code window}. */
+    private List<LongTimeRange> sweepInterned(List<Event> sortedEvents, MeetingRequest request, 
+                                              LongTimeRange window) {
+        checkFitsInInt(window);
+        Scratch scratch = SCRATCH.get();
+        sweep(sortedEvents, request, window, metrics, scratch);
+        return emit(toLongTimeRanges(scratch.timeRanges));
+    }
+
+    /**
+    * Interns the attendees of every event, so that the sweep can look up the request's names 
+    * afterwards without growing the dictionary. Events interned before cost one field read.
+    */
+    private static void internAll(Iterable<Event> events) {
+        for (Event event : events) {
+            event.internAttendees();
+        }
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest, LongTimeRange)}, but also counts every 
+    * occurrence of {@code series} inside {@code window} as an event. Occurrences are made one 
+    * at a time and merged into the sweep in start order, so memory grows with the number of 
+    * series rather than the number of occurrences. The answer is the same as for the events 
+    * plus every occurrence expanded up front.
+    *
+    * @param series recurring events. Series without any of the requested attendees or any 
+    *               resource that qualifies for one of the request's requirements are skipped 
+    *               without being expanded.
+    */
+    public List<LongTimeRange> query(Collection<Event> events, Collection<RecurringEvent> series, 
+                                     MeetingRequest request, LongTimeRange window) {
+        checkFitsInInt(window);
+        long started = startTimer();
+        EventSnapshot snapshot = EventSnapshot.of(events);
+        stopTimer(QueryMetrics.Phase.SORT, started);
+
+        // Resources are booked as attendees, so a series booking one of them counts too.
+        Set<String> resources = new HashSet<>();
+        for (ResourceRequirement requirement : request.getResourceRequirements()) {
+            resources.addAll(requirement.getQualifying());
+        }
+        List<Iterable<Event>> sortedStreams = new ArrayList<>();
+        sortedStreams.add(snapshot.getEvents());
+        for (RecurringEvent recurring : series) {
+            Event first = recurring.getFirst();
+            if (first.hasAnyAttendee(request.getAttendees()) 
+                    || first.hasAnyAttendee(request.getOptionalAttendees()) 
+                    || first.hasAnyAttendee(resources)) {
+                // Every occurrence shares the IDs of the first.
+                first.internAttendees();
+                sortedStreams.add(() -> recurring.occurrences(window));
+            }
+        }
+
+        Scratch scratch = SCRATCH.get();
+        sweep(Iterables.mergeSorted(sortedStreams, Event.ORDER_BY_TIMERANGE_START_TIME), request, 
+              window, metrics, scratch);
+        return emit(toLongTimeRanges(scratch.timeRanges));
+    }
+
+    private static void checkFitsInInt(LongTimeRange window) {
+        if (window.start() < Integer.MIN_VALUE || window.end() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(window + " does not fit in int minutes");
+        }
+    }
+
+    /** Returns the time to measure a phase from, without reading the clock when not recording. */
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    private void stopTimer(QueryMetrics.Phase phase, long started) {
+        if (metrics != null) {
+            metrics.record(phase, System.nanoTime() - started);
+        }
+    }
+
+    /** Counts {@code slots} as emitted and returns them. */
+    private <T extends Collection<?>> T emit(T slots) {
+        if (metrics != null) {
+            metrics.count(QueryMetrics.Counter.SLOTS_EMITTED, slots.size());
+        }
+        return slots;
+    }
+
+    private static List<LongTimeRange> toLongTimeRanges(IntervalBuffer timeRanges) {
+        List<LongTimeRange> converted = new ArrayList<>(timeRanges.size());
+        for (int i = 0; i < timeRanges.size(); i++) {
+            converted.add(LongTimeRange.fromStartEnd(timeRanges.start(i), timeRanges.end(i)));
+        }
+        return converted;
+    }
+
+    /**
+    * Same as {@link #query(Collection, MeetingRequest)}, but reads the busy times of the 
+    * requested attendees from {@code index}, such as an {@code AttendeeIndex}. Only the 
+    * calendars of the people named in {@code request} are visited, however many events the 
+    * index holds. A group of attendees, mandatory or optional, at least as large as the 
+    * parallel threshold has its calendars merged on the fork/join pool; {@code index} must then 
+    * be safe to read from several threads.
+    */
+    public Collection<TimeRange> query(BusyTimes index, MeetingRequest request) {
+        return query(index, request, 0);
+    }
+
+    /**
+    * Same as {@link #query(BusyTimes, MeetingRequest)}, but for day {@code day} of the 
+    * calendar, such as the busy times from {@code FreeBusyCache.forDay(day)}. The busy times 
+    * read from {@code index}, and the times returned, are in minutes from the start of that 
+    * day; working hours are applied as they fall on it. 
+    */
+    public Collection<TimeRange> query(BusyTimes index, MeetingRequest request, long day) {
+        Scratch scratch = SCRATCH.get();
+        IntervalBuffer mandatoryBusy;
+        IntervalBuffer optionalBusy;
+        boolean mandatoryInParallel = mergesInParallel(request.getAttendees());
+        boolean optionalInParallel = mergesInParallel(request.getOptionalAttendees());
+        if (mandatoryInParallel || optionalInParallel) {
+            long started = startTimer();
+            ForkJoinTask<IntervalBuffer> optional = optionalInParallel 
+                ? pool.submit(new MergeBusyTimes(index, 
+                                                 new ArrayList<>(request.getOptionalAttendees())))
+                : null;
+            mandatoryBusy = mandatoryInParallel 
+                ? pool.invoke(new MergeBusyTimes(index, new ArrayList<>(request.getAttendees())))
+                : mergeHere(index, request.getAttendees(), scratch.mandatoryBusy);
+            optionalBusy = optional != null 
+                ? optional.join() 
+                : mergeHere(index, request.getOptionalAttendees(), scratch.optionalBusy);
+            stopTimer(QueryMetrics.Phase.PARALLEL_MERGE, started);
+        } else {
+            long started = startTimer();
+            mandatoryBusy = mergeHere(index, request.getAttendees(), scratch.mandatoryBusy);
+            stopTimer(QueryMetrics.Phase.MANDATORY_MERGE, started);
+            started = startTimer();
+            optionalBusy = mergeHere(index, request.getOptionalAttendees(), scratch.optionalBusy);
+            stopTimer(QueryMetrics.Phase.OPTIONAL_MERGE, started);
+        }
+        if (metrics != null) {
+            // Every busy time read from the index belongs to a requested attendee.
+            int scanned = mandatoryBusy.size() + optionalBusy.size();
+            metrics.count(QueryMetrics.Counter.EVENTS_SCANNED, scanned);
+            metrics.count(QueryMetrics.Counter.EVENTS_MATCHED, scanned);
+        }
 
         // AVAILABLE time slots for mandatory attendees
-        List<TimeRange> mandatoryTimeRanges = getMandatoryTimeRanges(request, eventsList);
-      
-        // UNAVAILABLE time slots for optional attendees
-        List<TimeRange> optionalTimeRanges = getOptionalTimeRanges(request, eventsList);
+        IntervalBuffer mandatoryTimeRanges = scratch.mandatory;
+        mandatoryTimeRanges.clear();
+        IntervalBuffer.subtract(scratch.wholeDay, mandatoryBusy, request.getDuration(), 
+            mandatoryTimeRanges);
+        AvailabilityMasks masks = AvailabilityMasks.of(request);
+        ResourceCounts[] resources = ResourceCounts.of(request);
+        for (ResourceCounts counts : resources) {
+            counts.open((int) WHOLE_DAY.start(), (int) WHOLE_DAY.end());
+            counts.addBusy(index);
+            counts.close();
+        }
+        if (masks.hasMandatory()) {
+            IntervalBuffer unmasked = scratch.optional;
+            unmasked.clear();
+            unmasked.addAll(mandatoryTimeRanges);
+            mandatoryTimeRanges.clear();
+            masks.restrictWithinDay(day, false, unmasked, request.getDuration(), 
+                mandatoryTimeRanges);
+        }
+        if (mandatoryTimeRanges.isEmpty() || (optionalBusy.isEmpty() && !masks.hasOptional())) {
+            return emit(toSlots(choose(mandatoryTimeRanges, mandatoryTimeRanges, resources, 
+                                       request.getDuration(), scratch), request, scratch));
+        }
+
+        // AVAILABLE time slots that accommodate all mandatory and optional attendees
+        long started = startTimer();
+        IntervalBuffer allBusy = scratch.optional;
+        allBusy.clear();
+        IntervalBuffer.union(mandatoryBusy, optionalBusy, allBusy);
+        IntervalBuffer mixedTimeRanges = scratch.timeRanges;
+        mixedTimeRanges.clear();
+        if (masks.hasMandatory() || masks.hasOptional()) {
+            IntervalBuffer unmasked = scratch.mandatoryBusy;
+            unmasked.clear();
+            IntervalBuffer.subtract(scratch.wholeDay, allBusy, request.getDuration(), unmasked);
+            masks.restrictWithinDay(day, true, unmasked, request.getDuration(), mixedTimeRanges);
+        } else {
+            IntervalBuffer.subtract(scratch.wholeDay, allBusy, request.getDuration(), 
+                mixedTimeRanges);
+        }
+        stopTimer(QueryMetrics.Phase.MIXED_INTERSECTION, started);
+
+        return emit(toSlots(choose(mixedTimeRanges, mandatoryTimeRanges, resources, 
+                                   request.getDuration(), scratch), request, scratch));
+    }
 
-        if (mandatoryTimeRanges.isEmpty() || optionalTimeRanges.isEmpty()) {
-            return mandatoryTimeRanges;
-        }            
+    /**
+    * Same as {@link #query(Collection, MeetingRequest)}, but works on per-attendee bitmaps of 
+    * busy minutes. The busy minutes of each group of attendees are OR-ed together a word at a 
+    * time and the free slots are read off as runs of clear bits. {@code TimeRange}s are only 
+    * created for the slots that are returned.
+    */
+    public Collection<TimeRange> query(Map<String, DayOccupancy> occupancies, 
+                                       MeetingRequest request) {
+        return query(occupancies, request, 0);
+    }
+
+    /**
+    * Same as {@link #query(Map, MeetingRequest)}, but the bitmaps hold day {@code day} of the 
+    * calendar, and working hours are applied as they fall on that day. 
+    */
+    public Collection<TimeRange> query(Map<String, DayOccupancy> occupancies, 
+                                       MeetingRequest request, long day) {
+        Scratch scratch = SCRATCH.get();
+        DayOccupancy mandatory = scratch.mandatoryOccupancy;
+        DayOccupancy optional = scratch.optionalOccupancy;
+        long started = startTimer();
+        DayOccupancy.union(occupancies, request.getAttendees(), mandatory);
+        stopTimer(QueryMetrics.Phase.MANDATORY_MERGE, started);
+        started = startTimer();
+        DayOccupancy.union(occupancies, request.getOptionalAttendees(), optional);
+        stopTimer(QueryMetrics.Phase.OPTIONAL_MERGE, started);
+        AvailabilityMasks masks = AvailabilityMasks.of(request);
+        masks.addMandatory(day, mandatory);
+        masks.addOptional(day, optional);
+        ResourceCounts[] resources = ResourceCounts.of(request);
+        for (ResourceCounts counts : resources) {
+            counts.open((int) WHOLE_DAY.start(), (int) WHOLE_DAY.end());
+            counts.addBusy(occupancies, scratch.mandatoryBusy);
+            counts.close();
+        }
+
+        // AVAILABLE time slots for mandatory attendees
+        IntervalBuffer mandatoryTimeRanges = scratch.mandatory;
+        mandatoryTimeRanges.clear();
+        mandatory.getFreeTimes(request.getDuration(), mandatoryTimeRanges);
+        if (mandatoryTimeRanges.isEmpty() || optional.isEmpty()) {
+            return emit(toSlots(choose(mandatoryTimeRanges, mandatoryTimeRanges, resources, 
+                                       request.getDuration(), scratch), request, scratch));
+        }
 
         // AVAILABLE time slots that accommodate all mandatory and optional attendees
-        List<TimeRange> mixedTimeRanges = getMixedTimeRanges(mandatoryTimeRanges, 
-                                                            optionalTimeRanges, request);
-
-        return (mixedTimeRanges.isEmpty()) ? mandatoryTimeRanges : mixedTimeRanges;
-    }
-
-    /**
-    * Look through the {@code eventsList} to see if there's any intersections between the event's 
-    * attendees and mandatory attendees. This method uses {@code window} to mark the longest filled
-    * {@code TimeRange} after the last free {@code TimeRange}. At the start of the iteration, 
-    * {@code window} represents the start of day. When the window is renewed, then the gap between
-    * the previous and the new window will be added to {@code mandatoryTimeRanges} if fits the 
-    * {@code request} duration. 
-    */
-    private List<TimeRange> getMandatoryTimeRanges(MeetingRequest request, List<Event> eventsList) {
-        List<TimeRange> mandatoryTimeRanges = new ArrayList<>();
-        Set<String> mandatoryAttendees = new HashSet<>(request.getAttendees());
-        TimeRange window = TimeRange.fromStartDuration(0,0);
-        for (Event event : eventsList) {
-            Set<String> eventAttendees = event.getAttendees();
-            SetView<String> intersection = Sets.intersection(mandatoryAttendees, eventAttendees);
-            if (!intersection.isEmpty()) {
-                if (event.getWhen().start() <= window.end()) {
-                    int newStartTime = Math.min(event.getWhen().start(), window.start());
-                    int newEndTime = Math.max(event.getWhen().end(), window.end());
-                    window = TimeRange.fromStartEnd(newStartTime, newEndTime, false);
-                }
-                else {
-                    if (event.getWhen().start() - window.end() >= request.getDuration()) {
-                        mandatoryTimeRanges
-                            .add(TimeRange.fromStartEnd(window.end(), event.getWhen().start(), false));
-                    }
-                    window = TimeRange
-                        .fromStartEnd(event.getWhen().start(), event.getWhen().end(), false);
-                }
+        started = startTimer();
+        optional.or(mandatory);
+        IntervalBuffer mixedTimeRanges = scratch.timeRanges;
+        mixedTimeRanges.clear();
+        optional.getFreeTimes(request.getDuration(), mixedTimeRanges);
+        stopTimer(QueryMetrics.Phase.MIXED_INTERSECTION, started);
+
+        return emit(toSlots(choose(mixedTimeRanges, mandatoryTimeRanges, resources, 
+                                   request.getDuration(), scratch), request, scratch));
+    }
+
+    /**
+    * Returns the free gaps that fit both mandatory and optional attendees, or those that fit 
+    * mandatory attendees when there are none. With resource requirements, both are first cut 
+    * down to where each requirement has a resource free for the whole meeting.
+    */
+    private static IntervalBuffer choose(IntervalBuffer mixedTimeRanges, 
+                                         IntervalBuffer mandatoryTimeRanges, 
+                                         ResourceCounts[] resources, long duration, 
+                                         Scratch scratch) {
+        if (resources.length == 0) {
+            return mixedTimeRanges.isEmpty() ? mandatoryTimeRanges : mixedTimeRanges;
+        }
+
+        IntervalBuffer chosen = scratch.resourceTimeRanges;
+        chosen.clear();
+        ResourceCounts.restrict(resources, mixedTimeRanges, duration, chosen);
+        if (chosen.isEmpty() && mixedTimeRanges != mandatoryTimeRanges) {
+            ResourceCounts.restrict(resources, mandatoryTimeRanges, duration, chosen);
+        }
+        return chosen;
+    }
+
+    /**
+    * Returns {@code free} as the timeslots {@code request} asks for. Whole gaps with no limit 
+    * are returned as they are.
+    */
+    private static List<TimeRange> toSlots(IntervalBuffer free, MeetingRequest request, 
+                                           Scratch scratch) {
+        if (request.getSlotGranularity() == 0 && request.getMaxSlots() == 0) {
+            return free.toTimeRanges();
+        }
+        IntervalBuffer slots = scratch.slots;
+        slots.clear();
+        addSlots(free, request, slots);
+        return slots.toTimeRanges();
+    }
+
+    /**
+    * Appends the free gaps in {@code free} to {@code slots} in the form {@code request} asks 
+    * for: as they are, or as candidates lasting exactly the duration on the request's grid. 
+    * Stops once {@code slots} holds {@link MeetingRequest#getMaxSlots} timeslots, so a full 
+    * result costs no more candidates than it returns.
+    */
+    private static void addSlots(IntervalBuffer free, MeetingRequest request, 
+                                 IntervalBuffer slots) {
+        int granularity = request.getSlotGranularity();
+        long duration = request.getDuration();
+        for (int i = 0; i < free.size() && !isFull(slots, request); i++) {
+            if (granularity == 0) {
+                slots.add(free.start(i), free.end(i));
+                continue;
+            }
+
+            // The first start on the grid at or after the gap opens. Gaps cut down to fit 
+            // resources may overlap, so starts already taken by the last gap are skipped.
+            long start = free.start(i) 
+                + Math.floorMod(request.getSlotAlignment() - free.start(i), granularity);
+            if (!slots.isEmpty() && start <= slots.start(slots.size() - 1)) {
+                start = slots.start(slots.size() - 1) + granularity;
+            }
+            for (; start + duration <= free.end(i) && !isFull(slots, request); 
+                    start += granularity) {
+                slots.add((int) start, (int) (start + duration));
             }
         }
-        if (TimeRange.END_OF_DAY + 1 - window.end() >= request.getDuration()) {
-            mandatoryTimeRanges.add(TimeRange.fromStartEnd(window.end(), TimeRange.END_OF_DAY, true));
+    }
+
+    private static boolean isFull(IntervalBuffer slots, MeetingRequest request) {
+        return request.getMaxSlots() > 0 && slots.size() >= request.getMaxSlots();
+    }
+
+    /**
+    * Returns true if the calendars of {@code attendees} are many enough to merge on the pool, 
+    * and the pool has more than one thread to merge them with. 
+    */
+    private boolean mergesInParallel(Collection<String> attendees) {
+        return attendees.size() >= parallelThreshold && pool.getParallelism() > 1;
+    }
+
+    /** Merges the calendars of {@code attendees} into {@code busy} on the calling thread. */
+    private static IntervalBuffer mergeHere(BusyTimes index, Collection<String> attendees, 
+                                            IntervalBuffer busy) {
+        busy.clear();
+        addBusyTimes(index, attendees, busy);
+        return busy;
+    }
+
+    /** Adds the merged busy times of {@code attendees} to {@code busy}. */
+    private static void addBusyTimes(BusyTimes index, Collection<String> attendees, 
+                                     IntervalBuffer busy) {
+        for (TimeRange when : index.getBusyTimes(attendees)) {
+            busy.addMerged(when.start(), when.end());
         }
-        return Collections.unmodifiableList(mandatoryTimeRanges);
     }
 
     /**
-    * Find the events that have {@code optionalAttendees}. Add the {@code TimeRange} 
-    * only if the {@code event} starts after the last {@code TimeRange}. Otherwise, we
-    * modify the last {@code TimeRange} to fit the current {@code event}.
+    * Sweeps once over {@code sortedEvents}, which must be in start order, and leaves the 
+    * timeslots of every day in {@code window} in {@code scratch.timeRanges}.
     */
-    private List<TimeRange> getOptionalTimeRanges(MeetingRequest request, List<Event> eventsList) {
-        List<TimeRange> optionalTimeRanges = new LinkedList<>();
-        Set<String> optionalAttendees = new HashSet<>(request.getOptionalAttendees());
-        for (Event event : eventsList) {
-            int lastElement = optionalTimeRanges.size() - 1;
-            Set<String> eventAttendees = event.getAttendees();
-            SetView<String> intersection = Sets.intersection(eventAttendees, optionalAttendees);
-            if (!intersection.isEmpty()) {
-                if (optionalTimeRanges.isEmpty()) {
-                    optionalTimeRanges.add(event.getWhen());
-                }
-                else if (event.getWhen().start() <= optionalTimeRanges.get(lastElement).end()) {
-                    int newStartTime = Math
-                        .min(event.getWhen().start(), optionalTimeRanges.get(lastElement).start());
-                    int newEndTime = Math
-                        .max(event.getWhen().end(), optionalTimeRanges.get(lastElement).end());
-                    optionalTimeRanges
-                        .set(lastElement, TimeRange.fromStartEnd(newStartTime, newEndTime, false));
-                }
-                else {
-                    optionalTimeRanges.add(event.getWhen());
+    private static void sweep(Iterable<Event> sortedEvents, MeetingRequest request, 
+                              LongTimeRange window, QueryMetrics metrics, Scratch scratch) {
+        long started = metrics == null ? 0 : System.nanoTime();
+        int scanned = 0;
+        int matched = 0;
+        AttendeeIdSet mandatoryAttendees = scratch.mandatoryAttendees;
+        AttendeeIdSet optionalAttendees = scratch.optionalAttendees;
+        mandatoryAttendees.clear();
+        optionalAttendees.clear();
+        mandatoryAttendees.addAll(request.getAttendees(), AttendeeDictionary.getDefault());
+        optionalAttendees.addAll(request.getOptionalAttendees(), AttendeeDictionary.getDefault());
+        IntervalBuffer timeRanges = scratch.timeRanges;
+        timeRanges.clear();
+        if (window.duration() == 0) {
+            return;
+        }
+
+        AvailabilityMasks masks = AvailabilityMasks.of(request);
+        ResourceCounts[] resources = ResourceCounts.of(request);
+        FreeTimes mandatory = scratch.mandatoryFreeTimes;
+        FreeTimes optional = scratch.optionalFreeTimes;
+        mandatory.reset(request.getDuration());
+        optional.reset(request.getDuration());
+        long day = LongTimeRange.dayOf(window.start());
+        long lastDay = LongTimeRange.dayOf(window.end() - 1);
+        int dayEnd = openDay(day, window, mandatory, optional, resources);
+
+        for (Event event : sortedEvents) {
+            scanned++;
+            int start = event.getWhen().start();
+            int end = event.getWhen().end();
+            if (end <= window.start()) {
+                continue;
+            }
+            if (start >= window.end()) {
+                break;
+            }
+
+            // Finish the days that end before this event starts. Their free time can't change.
+            while (start >= dayEnd) {
+                if (finishDay(mandatory, optional, day, masks, resources, request, metrics, 
+                              scratch)) {
+                    recordSweep(metrics, started, scanned, matched);
+                    return;
                 }
+                dayEnd = openDay(++day, window, mandatory, optional, resources);
+            }
+            boolean isMandatory = event.hasAnyAttendee(mandatoryAttendees);
+            boolean isOptional = event.hasAnyAttendee(optionalAttendees);
+            if (isMandatory) {
+                mandatory.addBusy(start, end);
+            }
+            if (isOptional) {
+                optional.addBusy(start, end);
+            }
+            if (isMandatory || isOptional) {
+                matched++;
+            }
+            for (ResourceCounts counts : resources) {
+                counts.addBusy(event);
             }
         }
-        return optionalTimeRanges;
-    }
-
-    /**
-    * This method uses {@code currentGap}, which is the empty timeslot between the current 
-    * {@code optionalTimeRange} and the {@code previousOptionalTimeRange}. If there's no 
-    * {@code optionalTimeRange} that reaches the end of day, then the end of day will be
-    * added to the {@code optionalTimeRanges} as a point in time. Note that each gap is 
-    * not a free time slot for all attendees, only for {@code optionalAttendees}, so we 
-    * still have to take into account the free timeslots in {@code mandatoryTimeRanges}.
-    * If a free time slot for {@code optionalAttendees} is not free for {@code mandatoryAttendees},
-    * then the free time slot won't be added. If a free time slot for {@code optionalAttendees} 
-    * exists and also accommodate a {@code mandatoryTimeRange}, then it will be added to 
-    * {@code mixedTimeRanges}.
-    */
-    private List<TimeRange> getMixedTimeRanges(List<TimeRange> mandatoryTimeRanges, 
-                                                List<TimeRange> optionalTimeRanges, 
-                                                MeetingRequest request) {
-        if (optionalTimeRanges
-                .get(optionalTimeRanges.size() - 1).end() < TimeRange.END_OF_DAY + 1) {
-            optionalTimeRanges.add(TimeRange.fromStartDuration(TimeRange.END_OF_DAY + 1, 0));
-        }
-        List<TimeRange> mixedTimeRanges = new ArrayList<>();
-        TimeRange previousOptionalTimeRange = TimeRange.fromStartDuration(0, 0);
-        for (TimeRange optionalTimeRange : optionalTimeRanges) {
-            int gapStart = previousOptionalTimeRange.end();
-            int gapEnd = optionalTimeRange.start();
-            TimeRange currentGap = TimeRange.fromStartEnd(gapStart, gapEnd, false);
-            previousOptionalTimeRange = optionalTimeRange;
-            for (TimeRange mandatoryTimeRange : mandatoryTimeRanges) {
-                if (currentGap.contains(mandatoryTimeRange)) {
-                    mixedTimeRanges.add(mandatoryTimeRange);
-                }
-                else if(mandatoryTimeRange.contains(currentGap) 
-                        && currentGap.duration() >= request.getDuration()) {
-                    mixedTimeRanges.add(currentGap);
-                }
-                else if (currentGap.contains(mandatoryTimeRange.start()) 
-                        && currentGap.end() - mandatoryTimeRange.start() >= request.getDuration()) {
-                    mixedTimeRanges.add(TimeRange
-                        .fromStartEnd(mandatoryTimeRange.start(), currentGap.end(), false));
-                }
-                else if (currentGap.contains(mandatoryTimeRange.end()) 
-                        && mandatoryTimeRange.end() - currentGap.start() >= request.getDuration()) {
-                    mixedTimeRanges.add(TimeRange
-                        .fromStartEnd(currentGap.start(), mandatoryTimeRange.end(), false));
-                }
+
+        // Finish the rest of the window, including days without any events.
+        while (true) {
+            if (finishDay(mandatory, optional, day, masks, resources, request, metrics, scratch) 
+                    || day == lastDay) {
+                recordSweep(metrics, started, scanned, matched);
+                return;
             }
+            openDay(++day, window, mandatory, optional, resources);
+        }
+    }
+
+    /**
+    * Starts collecting the free time of {@code day}, limited to the part of it inside 
+    * {@code window}. Returns the end of that part.
+    */
+    private static int openDay(long day, LongTimeRange window, FreeTimes mandatory, 
+                               FreeTimes optional, ResourceCounts[] resources) {
+        LongTimeRange wholeDay = LongTimeRange.wholeDay(day);
+        int from = (int) Math.max(wholeDay.start(), window.start());
+        int to = (int) Math.min(wholeDay.end(), window.end());
+        mandatory.open(from, to);
+        optional.open(from, to);
+        for (ResourceCounts counts : resources) {
+            counts.open(from, to);
+        }
+        return to;
+    }
+
+    /**
+    * Adds the timeslots of the current day to {@code scratch.timeRanges}. Returns true if the 
+    * request's limit has been reached, so no later day can add anything.
+    */
+    private static boolean finishDay(FreeTimes mandatory, FreeTimes optional, long day, 
+                                     AvailabilityMasks masks, ResourceCounts[] resources, 
+                                     MeetingRequest request, QueryMetrics metrics, 
+                                     Scratch scratch) {
+        long started = metrics == null ? 0 : System.nanoTime();
+        IntervalBuffer free = combine(mandatory, optional, day, masks, resources, 
+                                      request.getDuration(), scratch);
+        if (metrics != null) {
+            metrics.record(QueryMetrics.Phase.MIXED_INTERSECTION, System.nanoTime() - started);
+        }
+        addSlots(free, request, scratch.timeRanges);
+        return isFull(scratch.timeRanges, request);
+    }
+
+    /** Records a finished sweep, which includes the mixed intersection of each of its days. */
+    private static void recordSweep(QueryMetrics metrics, long started, int scanned, 
+                                    int matched) {
+        if (metrics != null) {
+            metrics.record(QueryMetrics.Phase.SWEEP, System.nanoTime() - started);
+            metrics.count(QueryMetrics.Counter.EVENTS_SCANNED, scanned);
+            metrics.count(QueryMetrics.Counter.EVENTS_MATCHED, matched);
+        }
+    }
+
+    /**
+    * Returns the free gaps of the current day that fit both mandatory and optional attendees, 
+    * falling back to the gaps free for mandatory attendees when there are none. Minutes outside 
+    * an attendee's working hours count as busy for them, and with resource requirements only 
+    * the parts where each has a resource free are kept.
+    */
+    private static IntervalBuffer combine(FreeTimes mandatory, FreeTimes optional, long day, 
+                                          AvailabilityMasks masks, ResourceCounts[] resources, 
+                                          long duration, Scratch scratch) {
+        // AVAILABLE time slots for mandatory attendees
+        IntervalBuffer mandatoryTimeRanges = mandatory.close();
+        if (masks.hasMandatory()) {
+            scratch.mandatory.clear();
+            masks.restrict(day, false, mandatoryTimeRanges, duration, scratch.mandatory);
+            mandatoryTimeRanges = scratch.mandatory;
+        }
+        // AVAILABLE time slots for optional attendees
+        IntervalBuffer optionalTimeRanges = optional.close();
+
+        // AVAILABLE time slots that accommodate all mandatory and optional attendees
+        IntervalBuffer mixedTimeRanges = mandatoryTimeRanges;
+        if (!mandatoryTimeRanges.isEmpty() && (optional.isBusy() || masks.hasOptional())) {
+            mixedTimeRanges = scratch.mixed;
+            mixedTimeRanges.clear();
+            if (masks.hasOptional()) {
+                IntervalBuffer unmasked = scratch.optional;
+                unmasked.clear();
+                IntervalBuffer.intersect(mandatoryTimeRanges, optionalTimeRanges, duration, 
+                    unmasked);
+                masks.restrict(day, true, unmasked, duration, mixedTimeRanges);
+            } else {
+                IntervalBuffer.intersect(mandatoryTimeRanges, optionalTimeRanges, duration, 
+                    mixedTimeRanges);
+            }
+        }
+
+        for (ResourceCounts counts : resources) {
+            counts.close();
+        }
+        return choose(mixedTimeRanges, mandatoryTimeRanges, resources, duration, scratch);
+    }
+
+    /**
+    * Collects the gaps between busy windows that are fed to it in start order, one day at a 
+    * time. Only the end of the current busy window is kept, so a gap is emitted as soon as a 
+    * busy time starts after it. The busy window carries over from one day to the next, so an 
+    * event that runs past midnight also blocks the start of the next day. Gaps shorter than the 
+    * requested duration are dropped right away because no part of them can hold the meeting.
+    */
+    private static final class FreeTimes {
+        private final IntervalBuffer timeRanges = new IntervalBuffer();
+        private long duration;
+        private int to;
+        private int busyEnd;
+        private boolean busy;
+
+        /** Forgets everything collected so far, ready for a new query. */
+        void reset(long duration) {
+            this.duration = duration;
+            busyEnd = Integer.MIN_VALUE;
+        }
+
+        /** Starts collecting the gaps between {@code from} and {@code to}. */
+        void open(int from, int to) {
+            this.to = to;
+            timeRanges.clear();
+            busy = busyEnd > from;
+            busyEnd = Math.max(busyEnd, from);
+        }
+
+        void addBusy(int start, int end) {
+            timeRanges.addGap(busyEnd, Math.min(start, to), duration);
+            busyEnd = Math.max(busyEnd, end);
+            busy = true;
+        }
+
+        boolean isBusy() {
+            return busy;
+        }
+
+        /** Adds the gap between the last busy window and {@code to}, then returns the gaps. */
+        IntervalBuffer close() {
+            timeRanges.addGap(busyEnd, to, duration);
+            return timeRanges;
+        }
+    }
+
+    /**
+    * Merges the busy times of a list of attendees by splitting it in half until each piece is 
+    * small enough to merge directly, then joining the halves with an interval union.
+    */
+    private static final class MergeBusyTimes extends RecursiveTask<IntervalBuffer> {
+        private static final long serialVersionUID = 1L;
+
+        // The most attendees whose calendars one task merges by itself.
+        private static final int ATTENDEES_PER_TASK = 32;
+
+        private final BusyTimes index;
+        private final List<String> attendees;
+
+        MergeBusyTimes(BusyTimes index, List<String> attendees) {
+            this.index = index;
+            this.attendees = attendees;
+        }
+
+        @Override
+        protected IntervalBuffer compute() {
+            if (attendees.size() <= ATTENDEES_PER_TASK) {
+                IntervalBuffer busy = new IntervalBuffer();
+                addBusyTimes(index, attendees, busy);
+                return busy;
+            }
+
+            int middle = attendees.size() / 2;
+            MergeBusyTimes first = new MergeBusyTimes(index, attendees.subList(0, middle));
+            first.fork();
+            IntervalBuffer second = 
+                new MergeBusyTimes(index, attendees.subList(middle, attendees.size())).compute();
+            IntervalBuffer firstBusy = first.join();
+            IntervalBuffer union = new IntervalBuffer(firstBusy.size() + second.size());
+            IntervalBuffer.union(firstBusy, second, union);
+            return union;
+        }
+    }
+
+    /**
+    * The buffers one thread reuses from query to query, so that a query on a warm thread 
+    * allocates nothing but its answer.
+    */
+    private static final class Scratch {
+        private final IntervalBuffer wholeDay = new IntervalBuffer(1);
+        private final IntervalBuffer mandatoryBusy = new IntervalBuffer();
+        private final IntervalBuffer optionalBusy = new IntervalBuffer();
+        private final IntervalBuffer mandatory = new IntervalBuffer();
+        private final IntervalBuffer optional = new IntervalBuffer();
+        private final IntervalBuffer timeRanges = new IntervalBuffer();
+        private final IntervalBuffer mixed = new IntervalBuffer();
+        private final IntervalBuffer resourceTimeRanges = new IntervalBuffer();
+        private final IntervalBuffer slots = new IntervalBuffer();
+        private final FreeTimes mandatoryFreeTimes = new FreeTimes();
+        private final FreeTimes optionalFreeTimes = new FreeTimes();
+        private final DayOccupancy mandatoryOccupancy = new DayOccupancy();
+        private final DayOccupancy optionalOccupancy = new DayOccupancy();
+        private final AttendeeIdSet mandatoryAttendees = new AttendeeIdSet();
+        private final AttendeeIdSet optionalAttendees = new AttendeeIdSet();
+
+        Scratch() {
+            wholeDay.add((int) WHOLE_DAY.start(), (int) WHOLE_DAY.end());
         }
-        return Collections.unmodifiableList(mixedTimeRanges);
     }
-}
\ No newline at end of file
+}
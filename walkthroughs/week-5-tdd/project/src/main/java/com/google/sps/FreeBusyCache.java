@@ -0,0 +1,212 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Caches the merged busy times of each attendee for each day, in front of an
+ * {@code EventSource}. A miss asks the source for one attendee's events on one day only. Events
+ * must be changed through this cache so that it can drop the entries of the attendees and days an
+ * event touches; every other entry stays cached. Event times are read as minutes from the same
+ * epoch as {@code LongTimeRange}.
+ */
+public final class FreeBusyCache {
+  private final EventSource source;
+  private final LoadingCache<Key, List<TimeRange>> busyTimes;
+  private final AtomicLong invalidations = new AtomicLong();
+
+  // Entries are loaded under the read lock and invalidated under the write lock, so an entry
+  // loaded from the source before a change can't be stored after that change dropped it.
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Creates a cache in front of {@code source} holding at most {@code maximumEntries}
+   * attendee-days.
+   */
+  public FreeBusyCache(EventSource source, long maximumEntries) {
+    this.source = source;
+    this.busyTimes = CacheBuilder.newBuilder()
+        .maximumSize(maximumEntries)
+        .recordStats()
+        .build(new CacheLoader<Key, List<TimeRange>>() {
+          @Override
+          public List<TimeRange> load(Key key) {
+            return loadBusyTimes(key.attendee, key.day);
+          }
+        });
+  }
+
+  /**
+   * Returns the times {@code attendee} is busy on {@code day}, merged, sorted and clipped to the
+   * day.
+   */
+  public List<TimeRange> getBusyTimes(String attendee, long day) {
+    lock.readLock().lock();
+    try {
+      return busyTimes.getUnchecked(new Key(attendee, day));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a view of the busy times on {@code day} in minutes from the start of that day, ready
+   * for {@link FindMeetingQuery#query(BusyTimes, MeetingRequest, long)}, built from the cached
+   * entries of each attendee asked about.
+   */
+  public BusyTimes forDay(long day) {
+    int dayStart = (int) LongTimeRange.wholeDay(day).start();
+    return attendees -> {
+      List<List<TimeRange>> calendars = new ArrayList<>(attendees.size());
+      for (String attendee : attendees) {
+        calendars.add(getBusyTimes(attendee, day));
+      }
+      List<TimeRange> merged = AttendeeIndex.merge(calendars);
+      if (dayStart == 0) {
+        return merged;
+      }
+      List<TimeRange> shifted = new ArrayList<>(merged.size());
+      for (TimeRange busy : merged) {
+        shifted.add(TimeRange.fromStartEnd(busy.start() - dayStart, busy.end() - dayStart, false));
+      }
+      return shifted;
+    };
+  }
+
+  /**
+   * Adds {@code event} and drops the cached days it touches.
+   */
+  public void addEvent(Event event) {
+    lock.writeLock().lock();
+    try {
+      source.addEvent(event);
+      invalidate(event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes {@code event} and drops the cached days it touched.
+   */
+  public void removeEvent(Event event) {
+    lock.writeLock().lock();
+    try {
+      source.removeEvent(event);
+      invalidate(event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces {@code oldEvent} with {@code newEvent} and drops the cached days either touches.
+   */
+  public void updateEvent(Event oldEvent, Event newEvent) {
+    lock.writeLock().lock();
+    try {
+      source.updateEvent(oldEvent, newEvent);
+      invalidate(oldEvent);
+      invalidate(newEvent);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the hit, miss and load counts of the cache. Every load is a rebuild of one
+   * attendee-day from the source.
+   */
+  public CacheStats getStats() {
+    return busyTimes.stats();
+  }
+
+  /**
+   * Returns how many attendee-days have been dropped because an event changed.
+   */
+  public long getInvalidationCount() {
+    return invalidations.get();
+  }
+
+  /**
+   * Returns how many attendee-days are cached right now.
+   */
+  public long size() {
+    return busyTimes.size();
+  }
+
+  private void invalidate(Event event) {
+    TimeRange when = event.getWhen();
+    long firstDay = LongTimeRange.dayOf(when.start());
+    long lastDay = LongTimeRange.dayOf(Math.max(when.start(), when.end() - 1));
+    for (String attendee : event.getAttendees()) {
+      for (long day = firstDay; day <= lastDay; day++) {
+        busyTimes.invalidate(new Key(attendee, day));
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  private List<TimeRange> loadBusyTimes(String attendee, long day) {
+    LongTimeRange wholeDay = LongTimeRange.wholeDay(day);
+    List<TimeRange> calendar = new ArrayList<>();
+    for (Event event : source.getEvents(Collections.singleton(attendee), wholeDay)) {
+      calendar.add(event.getWhen());
+    }
+    Collections.sort(calendar, TimeRange.ORDER_BY_START);
+
+    List<TimeRange> merged = new ArrayList<>();
+    for (TimeRange when : calendar) {
+      AttendeeIndex.append(merged, TimeRange.fromStartEnd(
+          (int) Math.max(when.start(), wholeDay.start()),
+          (int) Math.min(when.end(), wholeDay.end()), false));
+    }
+    return Collections.unmodifiableList(merged);
+  }
+
+  /** An attendee on a day. */
+  private static final class Key {
+    private final String attendee;
+    private final long day;
+
+    Key(String attendee, long day) {
+      this.attendee = attendee;
+      this.day = day;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && attendee.equals(((Key) other).attendee)
+          && day == ((Key) other).day;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(attendee, day);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@code EventSource} that keeps every event in memory, grouped by attendee and sorted by start
+ * time. Like {@code AttendeeIndex}, each attendee's list is replaced rather than modified when an
+ * event changes, so reads need no lock. All of the events are kept as one {@code EventSnapshot},
+ * which is replaced the same way.
+ */
+public final class InMemoryEventSource implements EventSource {
+  private final Map<String, List<Event>> calendars = new ConcurrentHashMap<>();
+  // Every event, including those nobody attends, replaced on every change like the calendars.
+  private volatile EventSnapshot snapshot = EventSnapshot.empty();
+  private volatile long version;
+
+  /**
+   * Creates an empty source.
+   */
+  public InMemoryEventSource() {}
+
+  /**
+   * Creates a source holding every event in {@code events}.
+   */
+  public InMemoryEventSource(Collection<Event> events) {
+    Map<String, List<Event>> grouped = new ConcurrentHashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        grouped.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event);
+      }
+    }
+    for (Map.Entry<String, List<Event>> entry : grouped.entrySet()) {
+      List<Event> calendar = entry.getValue();
+      Collections.sort(calendar, Event.ORDER_BY_TIMERANGE_START_TIME);
+      calendars.put(entry.getKey(), Collections.unmodifiableList(calendar));
+    }
+    this.snapshot = EventSnapshot.of(events);
+  }
+
+  @Override
+  public Collection<Event> getEvents(Collection<String> attendees, LongTimeRange window) {
+    // An event shared by several of the attendees is returned once.
+    Set<Event> found = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String attendee : attendees) {
+      for (Event event : calendars.getOrDefault(attendee, Collections.emptyList())) {
+        TimeRange when = event.getWhen();
+        if (when.start() >= window.end()) {
+          // The calendar is sorted by start, so nothing later can overlap the window.
+          break;
+        }
+        if (when.end() > window.start()) {
+          found.add(event);
+        }
+      }
+    }
+    return new ArrayList<>(found);
+  }
+
+  @Override
+  public Collection<Event> getAllEvents() {
+    return snapshot.getEvents();
+  }
+
+  @Override
+  public EventSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
+  @Override
+  public synchronized void addEvent(Event event) {
+    snapshot = snapshot.with(event);
+    for (String attendee : event.getAttendees()) {
+      List<Event> calendar =
+          new ArrayList<>(calendars.getOrDefault(attendee, Collections.emptyList()));
+      insert(calendar, event);
+      publish(attendee, calendar);
+    }
+    version++;
+  }
+
+  @Override
+  public synchronized void removeEvent(Event event) {
+    EventSnapshot changed = snapshot.without(event);
+    if (changed == snapshot) {
+      return;
+    }
+    snapshot = changed;
+
+    for (String attendee : event.getAttendees()) {
+      List<Event> calendar =
+          new ArrayList<>(calendars.getOrDefault(attendee, Collections.emptyList()));
+      if (calendar.remove(event)) {
+        publish(attendee, calendar);
+      }
+    }
+    version++;
+  }
+
+  /**
+   * Replaces the events in one step: one new snapshot, one new calendar per attendee of either
+   * event and one new version, so no reader sees the calendar with neither event.
+   */
+  @Override
+  public synchronized void updateEvent(Event oldEvent, Event newEvent) {
+    EventSnapshot without = snapshot.without(oldEvent);
+    boolean found = without != snapshot;
+    snapshot = without.with(newEvent);
+
+    Set<String> attendees = new HashSet<>(newEvent.getAttendees());
+    if (found) {
+      attendees.addAll(oldEvent.getAttendees());
+    }
+    for (String attendee : attendees) {
+      List<Event> calendar =
+          new ArrayList<>(calendars.getOrDefault(attendee, Collections.emptyList()));
+      if (found && oldEvent.getAttendees().contains(attendee)) {
+        calendar.remove(oldEvent);
+      }
+      if (newEvent.getAttendees().contains(attendee)) {
+        insert(calendar, newEvent);
+      }
+      publish(attendee, calendar);
+    }
+    version++;
+  }
+
+  /** Adds {@code event} to {@code calendar}, keeping it sorted by start time. */
+  private static void insert(List<Event> calendar, Event event) {
+    int index = Collections.binarySearch(calendar, event, Event.ORDER_BY_TIMERANGE_START_TIME);
+    calendar.add(index < 0 ? -index - 1 : index, event);
+  }
+
+  /** Makes {@code calendar} the calendar of {@code attendee}, or drops it if it is empty. */
+  private void publish(String attendee, List<Event> calendar) {
+    if (calendar.isEmpty()) {
+      calendars.remove(attendee);
+    } else {
+      calendars.put(attendee, Collections.unmodifiableList(calendar));
+    }
+  }
+}
@@ -0,0 +1,205 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A growable list of half-open minute intervals stored as two parallel {@code int} arrays, one of
+ * starts and one of ends. Unlike a {@code List<TimeRange>}, adding an interval creates no object
+ * and clearing keeps the arrays, so a buffer reused across queries stops allocating once it has
+ * grown to fit the largest calendar it sees.
+ *
+ * <p>The set operations expect their inputs to be sorted by start and free of overlaps, and
+ * produce output of the same shape.
+ */
+public final class IntervalBuffer {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private int[] starts;
+  private int[] ends;
+  private int size;
+
+  /**
+   * Creates an empty buffer.
+   */
+  public IntervalBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty buffer with room for {@code capacity} intervals before it has to grow.
+   */
+  public IntervalBuffer(int capacity) {
+    starts = new int[Math.max(1, capacity)];
+    ends = new int[Math.max(1, capacity)];
+  }
+
+  /**
+   * Returns the number of intervals in the buffer.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if the buffer holds no intervals.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the start of interval {@code i}.
+   */
+  public int start(int i) {
+    return starts[i];
+  }
+
+  /**
+   * Returns the end of interval {@code i}. This ending value is the closing exclusive bound.
+   */
+  public int end(int i) {
+    return ends[i];
+  }
+
+  /**
+   * Removes every interval but keeps the arrays for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Appends {@code [start, end)} as is.
+   */
+  public void add(int start, int end) {
+    if (size == starts.length) {
+      starts = Arrays.copyOf(starts, size * 2);
+      ends = Arrays.copyOf(ends, size * 2);
+    }
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  /**
+   * Appends {@code [start, end)}, joining it with the last interval if the two overlap or touch.
+   * Intervals must be added in start order.
+   */
+  public void addMerged(int start, int end) {
+    if (size > 0 && start <= ends[size - 1]) {
+      ends[size - 1] = Math.max(ends[size - 1], end);
+    } else {
+      add(start, end);
+    }
+  }
+
+  /**
+   * Appends every interval of {@code other}.
+   */
+  public void addAll(IntervalBuffer other) {
+    for (int i = 0; i < other.size; i++) {
+      add(other.starts[i], other.ends[i]);
+    }
+  }
+
+  /**
+   * Adds the minutes covered by {@code a} or {@code b} to {@code out}.
+   */
+  public static void union(IntervalBuffer a, IntervalBuffer b, IntervalBuffer out) {
+    int i = 0;
+    int j = 0;
+    while (i < a.size || j < b.size) {
+      if (j == b.size || (i < a.size && a.starts[i] <= b.starts[j])) {
+        out.addMerged(a.starts[i], a.ends[i]);
+        i++;
+      } else {
+        out.addMerged(b.starts[j], b.ends[j]);
+        j++;
+      }
+    }
+  }
+
+  /**
+   * Adds the minutes covered by both {@code a} and {@code b} to {@code out}, leaving out pieces
+   * shorter than {@code minDuration}. The cursor whose interval ends first is advanced, so every
+   * pair of overlapping intervals is visited exactly once.
+   */
+  public static void intersect(IntervalBuffer a, IntervalBuffer b, long minDuration,
+      IntervalBuffer out) {
+    int i = 0;
+    int j = 0;
+    while (i < a.size && j < b.size) {
+      out.addGap(Math.max(a.starts[i], b.starts[j]), Math.min(a.ends[i], b.ends[j]), minDuration);
+      if (a.ends[i] < b.ends[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+  }
+
+  /**
+   * Adds the minutes covered by {@code a} but not by {@code b} to {@code out}, leaving out pieces
+   * shorter than {@code minDuration}.
+   */
+  public static void subtract(IntervalBuffer a, IntervalBuffer b, long minDuration,
+      IntervalBuffer out) {
+    int j = 0;
+    for (int i = 0; i < a.size; i++) {
+      int start = a.starts[i];
+      int end = a.ends[i];
+      while (j < b.size && b.ends[j] <= start) {
+        j++;
+      }
+
+      int free = start;
+      // An interval of {@code b} that runs past {@code end} is kept for the next one of {@code a}.
+      while (j < b.size && b.starts[j] < end) {
+        out.addGap(free, b.starts[j], minDuration);
+        free = Math.max(free, b.ends[j]);
+        if (b.ends[j] > end) {
+          break;
+        }
+        j++;
+      }
+      out.addGap(free, end, minDuration);
+    }
+  }
+
+  /**
+   * Returns the intervals as a read-only list of {@code TimeRange}s.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> timeRanges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      timeRanges.add(TimeRange.fromStartEnd(starts[i], ends[i], false));
+    }
+    return Collections.unmodifiableList(timeRanges);
+  }
+
+  /**
+   * Appends {@code [start, end)} if it is not empty and lasts at least {@code minDuration}.
+   */
+  void addGap(int start, int end, long minDuration) {
+    if (end > start && end - start >= minDuration) {
+      add(start, end);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts non-negative values, such as durations in nanoseconds, in buckets whose width grows
+ * with the value, the way HdrHistogram does. Values below 32 get a bucket each; above that, each
+ * power of two is split into 16 buckets, so a percentile is off by at most 1 part in 16 and the
+ * whole range of {@code long} fits in under a thousand counters. Recording is lock-free and safe
+ * from any number of threads; reads see a recent state but not necessarily a consistent one.
+ */
+public final class LatencyHistogram {
+  // Each power of two keeps this many significant bits, including the leading one.
+  private static final int SIGNIFICANT_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SIGNIFICANT_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Counts {@code value}. Negative values, such as from a clock that went backwards, count as 0.
+   */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns how many values were recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the mean of the recorded values, or 0 if there are none.
+   */
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns the largest recorded value, or 0 if there are none.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that at least {@code percentile} percent of the recorded values are at or
+   * below: the top of the bucket holding that rank, but never more than the largest value. Returns
+   * 0 if there are no values.
+   *
+   * @param percentile from 0 to 100.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /** Returns the bucket that counts {@code value}. */
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // Keep the top SIGNIFICANT_BITS bits: the leading one and four more.
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SIGNIFICANT_BITS;
+    return shift * HALF + (int) (value >>> shift);
+  }
+
+  /** Returns the largest value that bucket {@code bucket} counts. */
+  static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / HALF - 1;
+    long top = bucket % HALF + HALF;
+    // For the last bucket this wraps around to exactly {@code Long.MAX_VALUE}.
+    return ((top + 1) << shift) - 1;
+  }
+}
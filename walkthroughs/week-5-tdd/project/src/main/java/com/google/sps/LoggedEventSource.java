@@ -0,0 +1,432 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@code EventSource} that keeps its events in an {@code InMemoryEventSource} and on local disk,
+ * so that changes survive a restart. Each change is appended to a log as one line of JSON and
+ * forced to disk before it is applied. Every {@code compactEvery} changes the whole calendar is
+ * written out as a snapshot and the log starts over, so opening the source reads one snapshot and
+ * replays at most {@code compactEvery} changes, however long the history.
+ *
+ * <p>The directory holds {@code snapshot-N.json}, the calendar after change {@code N}, and
+ * {@code log-N.jsonl}, the changes from change {@code N} on. A snapshot is written to a temporary
+ * file and then renamed, so it is either whole or absent. A log line cut short by a crash is
+ * ignored, since its change was never applied. A snapshot that can't be written is logged as a
+ * warning and tried again {@code compactEvery} changes later; the log keeps growing meanwhile.
+ */
+public final class LoggedEventSource implements EventSource, Closeable {
+  private static final Logger logger = Logger.getLogger(LoggedEventSource.class.getName());
+
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".json";
+  private static final String LOG_PREFIX = "log-";
+  private static final String LOG_SUFFIX = ".jsonl";
+
+  private static final TypeAdapter<Event> EVENT_ADAPTER =
+      CalendarJson.gson().getAdapter(Event.class);
+
+  private final Path directory;
+  private final int compactEvery;
+  private final InMemoryEventSource events;
+
+  // The number of the last change applied, counting from the first change ever made.
+  private long sequence;
+  private int changesSinceSnapshot;
+  private FileChannel log;
+
+  private LoggedEventSource(Path directory, int compactEvery, Collection<Event> events,
+      long sequence) {
+    this.directory = directory;
+    this.compactEvery = compactEvery;
+    this.events = new InMemoryEventSource(events);
+    this.sequence = sequence;
+  }
+
+  /**
+   * Opens the calendar stored in {@code directory}, creating it with {@code initialEvents} if the
+   * directory holds none yet. A snapshot is taken every {@code compactEvery} changes.
+   */
+  public static LoggedEventSource open(Path directory, Collection<Event> initialEvents,
+      int compactEvery) throws IOException {
+    if (compactEvery <= 0) {
+      throw new IllegalArgumentException("compactEvery must be positive");
+    }
+    Files.createDirectories(directory);
+    List<Long> snapshots = listSequences(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    List<Long> logs = listSequences(directory, LOG_PREFIX, LOG_SUFFIX);
+
+    if (snapshots.isEmpty() && logs.isEmpty()) {
+      LoggedEventSource source =
+          new LoggedEventSource(directory, compactEvery, initialEvents, 0);
+      source.compact();
+      return source;
+    }
+
+    long snapshotSequence = 0;
+    Multiset<Event> replayed = HashMultiset.create();
+    if (!snapshots.isEmpty()) {
+      snapshotSequence = snapshots.get(snapshots.size() - 1);
+      readSnapshot(snapshotPath(directory, snapshotSequence), replayed);
+    }
+
+    // Only the changes after the snapshot are applied. Older logs are still on disk when a crash
+    // came between writing a snapshot and deleting them.
+    long sequence = snapshotSequence;
+    for (long first : logs) {
+      sequence = replay(logPath(directory, first), sequence, replayed);
+    }
+
+    LoggedEventSource source = new LoggedEventSource(directory, compactEvery, replayed, sequence);
+    if (sequence > snapshotSequence || !logs.isEmpty()) {
+      // Starts from a clean directory, so a log with a torn last line is never appended to.
+      source.compact();
+    } else {
+      source.startLog();
+    }
+    return source;
+  }
+
+  @Override
+  public Collection<Event> getEvents(Collection<String> attendees, LongTimeRange window) {
+    return events.getEvents(attendees, window);
+  }
+
+  @Override
+  public Collection<Event> getAllEvents() {
+    return events.getAllEvents();
+  }
+
+  @Override
+  public EventSnapshot getSnapshot() {
+    return events.getSnapshot();
+  }
+
+  @Override
+  public long getVersion() {
+    return events.getVersion();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws UncheckedIOException if the change could not be logged, in which case it is not
+   *     applied
+   */
+  @Override
+  public synchronized void addEvent(Event event) {
+    append("add", null, event);
+    events.addEvent(event);
+    compactIfDue();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws UncheckedIOException if the change could not be logged, in which case it is not
+   *     applied
+   */
+  @Override
+  public synchronized void removeEvent(Event event) {
+    append("remove", null, event);
+    events.removeEvent(event);
+    compactIfDue();
+  }
+
+  /**
+   * {@inheritDoc} Both changes are logged as one record, so a crash can't apply only one.
+   *
+   * @throws UncheckedIOException if the change could not be logged, in which case it is not
+   *     applied
+   */
+  @Override
+  public synchronized void updateEvent(Event oldEvent, Event newEvent) {
+    append("update", oldEvent, newEvent);
+    events.updateEvent(oldEvent, newEvent);
+    compactIfDue();
+  }
+
+  /**
+   * Writes a snapshot of every event and starts a new log, then deletes the older snapshots and
+   * logs.
+   */
+  public synchronized void compact() throws IOException {
+    Path snapshot = snapshotPath(directory, sequence);
+    Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      JsonWriter writer = new JsonWriter(
+          new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+      writer.beginObject();
+      writer.name("sequence").value(sequence);
+      writer.name("events").beginArray();
+      for (Event event : events.getAllEvents()) {
+        EVENT_ADAPTER.write(writer, event);
+      }
+      writer.endArray();
+      writer.endObject();
+      writer.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+    for (long other : listSequences(directory, LOG_PREFIX, LOG_SUFFIX)) {
+      Files.delete(logPath(directory, other));
+    }
+    for (long other : listSequences(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+      if (other != sequence) {
+        Files.delete(snapshotPath(directory, other));
+      }
+    }
+    startLog();
+    changesSinceSnapshot = 0;
+  }
+
+  /**
+   * Closes the log. The source must not be changed afterwards.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+  }
+
+  private void startLog() throws IOException {
+    log = FileChannel.open(logPath(directory, sequence + 1), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  private void append(String operation, Event oldEvent, Event event) {
+    StringWriter line = new StringWriter();
+    try {
+      if (log == null) {
+        // A failed snapshot closed the old log before it could start the new one.
+        startLog();
+      }
+      JsonWriter writer = new JsonWriter(line);
+      writer.beginObject();
+      writer.name("sequence").value(sequence + 1);
+      writer.name("op").value(operation);
+      if (oldEvent != null) {
+        writer.name("old");
+        EVENT_ADAPTER.write(writer, oldEvent);
+      }
+      writer.name("event");
+      EVENT_ADAPTER.write(writer, event);
+      writer.endObject();
+      line.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not log the change", e);
+    }
+
+    long size = -1;
+    try {
+      size = log.size();
+      ByteBuffer bytes = StandardCharsets.UTF_8.encode(line.toString());
+      while (bytes.hasRemaining()) {
+        log.write(bytes);
+      }
+      log.force(false);
+    } catch (IOException e) {
+      // Cut off whatever part of the line was written, so the next change doesn't follow it.
+      try {
+        if (size >= 0) {
+          log.truncate(size);
+        }
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw new UncheckedIOException("Could not log the change", e);
+    }
+    sequence++;
+    changesSinceSnapshot++;
+  }
+
+  private void compactIfDue() {
+    if (changesSinceSnapshot < compactEvery) {
+      return;
+    }
+    try {
+      compact();
+    } catch (IOException e) {
+      // The change itself is already logged, so it is safe. Try again after another
+      // {@code compactEvery} changes rather than on every one, since the cause is likely to last.
+      logger.log(Level.WARNING, "Could not compact the event log in " + directory, e);
+      changesSinceSnapshot = 0;
+    }
+  }
+
+  private static void readSnapshot(Path path, Collection<Event> events) throws IOException {
+    try (Reader reader =
+        new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+      JsonReader in = new JsonReader(reader);
+      in.beginObject();
+      while (in.hasNext()) {
+        if (!in.nextName().equals("events")) {
+          in.skipValue();
+          continue;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+          events.add(EVENT_ADAPTER.read(in));
+        }
+        in.endArray();
+      }
+      in.endObject();
+    } catch (JsonParseException | IllegalStateException e) {
+      throw new IOException("Corrupt snapshot " + path, e);
+    }
+  }
+
+  /**
+   * Applies to {@code events} every change in the log at {@code path} that comes after change
+   * {@code sequence}, and returns the number of the last change applied.
+   */
+  private static long replay(Path path, long sequence, Multiset<Event> events)
+      throws IOException {
+    String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    int start = 0;
+    int end;
+    // A last line without its newline was being written when the process died.
+    while ((end = text.indexOf('\n', start)) >= 0) {
+      String line = text.substring(start, end);
+      start = end + 1;
+      try {
+        sequence = apply(new JsonReader(new StringReader(line)), sequence, events);
+      } catch (JsonParseException | IllegalStateException | NumberFormatException
+          | IOException e) {
+        throw new IOException("Corrupt record in " + path + ": " + line, e);
+      }
+    }
+    return sequence;
+  }
+
+  private static long apply(JsonReader in, long sequence, Multiset<Event> events)
+      throws IOException {
+    long recordSequence = -1;
+    String operation = null;
+    Event oldEvent = null;
+    Event event = null;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "sequence":
+          recordSequence = in.nextLong();
+          break;
+        case "op":
+          operation = in.nextString();
+          break;
+        case "old":
+          oldEvent = EVENT_ADAPTER.read(in);
+          break;
+        case "event":
+          event = EVENT_ADAPTER.read(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    if (recordSequence <= sequence) {
+      return sequence;
+    }
+    if (recordSequence != sequence + 1 || event == null) {
+      throw new IOException("Expected change " + (sequence + 1));
+    }
+    switch (String.valueOf(operation)) {
+      case "add":
+        events.add(event);
+        break;
+      case "remove":
+        events.remove(event);
+        break;
+      case "update":
+        if (oldEvent == null) {
+          throw new IOException("Update without the old event");
+        }
+        events.remove(oldEvent);
+        events.add(event);
+        break;
+      default:
+        throw new IOException("Unknown operation " + operation);
+    }
+    return recordSequence;
+  }
+
+  private static Path snapshotPath(Path directory, long sequence) {
+    return directory.resolve(SNAPSHOT_PREFIX + sequence + SNAPSHOT_SUFFIX);
+  }
+
+  private static Path logPath(Path directory, long sequence) {
+    return directory.resolve(LOG_PREFIX + sequence + LOG_SUFFIX);
+  }
+
+  /** Returns the numbers of the files named {@code prefix + N + suffix}, in increasing order. */
+  private static List<Long> listSequences(Path directory, String prefix, String suffix)
+      throws IOException {
+    List<Long> sequences = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          sequences.add(Long.parseLong(
+              name.substring(prefix.length(), name.length() - suffix.length())));
+        } catch (NumberFormatException e) {
+          // Not one of ours.
+        }
+      }
+    }
+    Collections.sort(sequences);
+    return sequences;
+  }
+}
@@ -0,0 +1,133 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A span of time measured in minutes from an epoch chosen by the caller, such as midnight of the
+ * first day being scheduled. Unlike {@code TimeRange}, it is not tied to a single day, so it can
+ * describe search windows and results that cover many days. Day {@code d} covers the minutes
+ * {@code [d * MINUTES_PER_DAY, (d + 1) * MINUTES_PER_DAY)}.
+ */
+public final class LongTimeRange {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private final long start;
+  private final long duration;
+
+  private LongTimeRange(long start, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("duration cannot be negative");
+    }
+
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the start of the range in minutes from the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the range. This ending value is the closing exclusive bound.
+   */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Returns the day that {@code minute} falls on. Minutes before the epoch fall on negative days.
+   */
+  public static long dayOf(long minute) {
+    return Math.floorDiv(minute, MINUTES_PER_DAY);
+  }
+
+  /**
+   * Returns the range covering all of day {@code day}.
+   */
+  public static LongTimeRange wholeDay(long day) {
+    return new LongTimeRange(day * MINUTES_PER_DAY, MINUTES_PER_DAY);
+  }
+
+  /**
+   * Returns the range covering {@code days} whole days, starting with day {@code firstDay}.
+   */
+  public static LongTimeRange wholeDays(long firstDay, int days) {
+    return new LongTimeRange(firstDay * MINUTES_PER_DAY, (long) days * MINUTES_PER_DAY);
+  }
+
+  /**
+   * Places {@code range}, given in minutes from the start of a day, on day {@code day}.
+   */
+  public static LongTimeRange onDay(long day, TimeRange range) {
+    return new LongTimeRange(day * MINUTES_PER_DAY + range.start(), range.duration());
+  }
+
+  /**
+   * Returns this range as a {@code TimeRange} in minutes from the start of its day. The range must
+   * not cross into the next day.
+   */
+  public TimeRange toTimeRange() {
+    long dayStart = dayOf(start) * MINUTES_PER_DAY;
+    if (end() > dayStart + MINUTES_PER_DAY) {
+      throw new IllegalStateException(this + " does not fit in one day");
+    }
+    return TimeRange.fromStartDuration((int) (start - dayStart), (int) duration);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof LongTimeRange && equals(this, (LongTimeRange) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  private static boolean equals(LongTimeRange a, LongTimeRange b) {
+    return a.start == b.start && a.duration == b.duration;
+  }
+
+  /**
+   * Creates a {@code LongTimeRange} from {@code start} to {@code end}, where {@code end} is not
+   * included in the range.
+   */
+  public static LongTimeRange fromStartEnd(long start, long end) {
+    return new LongTimeRange(start, end - start);
+  }
+
+  /**
+   * Creates a {@code LongTimeRange} starting at {@code start} with a duration equal to
+   * {@code duration}.
+   */
+  public static LongTimeRange fromStartDuration(long start, long duration) {
+    return new LongTimeRange(start, duration);
+  }
+}
@@ -0,0 +1,412 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Places many meeting requests on one day so that no two of them share a mandatory attendee or a
+ * resource at the same time, on top of a fixed calendar of events.
+ *
+ * <p>Requests are placed most constrained first: the fewer possible starts a request has on the
+ * calendar as given, the earlier it goes. Each request tries the times {@code FindMeetingQuery}
+ * offers on the calendar so far, earliest first, and a free gap is tried at both of its ends so
+ * the rest of the gap stays in one piece. If that first, greedy pass leaves requests out, the
+ * search starts over, and this time when a request has nowhere left to go it goes back to the last
+ * placement that shares a mandatory attendee or resource with it and tries that one's other
+ * times, up to a fixed number of times per call. A request that still has nowhere to go is left
+ * out. Whichever pass places more meetings wins.
+ *
+ * <p>Every attendee's busy minutes are kept in one {@code DayOccupancy} for the whole call: a
+ * placement marks its minutes busy and taking it back marks them free, so nothing is rebuilt
+ * between placements. Optional attendees only steer the choice of time, the way they do for
+ * {@code FindMeetingQuery}, and are not booked. The time budget is checked before each request's
+ * free times are first looked up and before every step of the search, so a call returns soon
+ * after it runs out, with the placements made so far.
+ */
+public final class MeetingPacker {
+  /**
+   * Puts the request with the fewest possible starts first. Ties go to the longer meeting, then
+   * to the one with more attendees and resources to book, then to the one asked for first.
+   */
+  private static final Comparator<Level> MOST_CONSTRAINED_FIRST = new Comparator<Level>() {
+    @Override
+    public int compare(Level a, Level b) {
+      if (a.starts != b.starts) {
+        return Long.compare(a.starts, b.starts);
+      }
+      if (a.request.getDuration() != b.request.getDuration()) {
+        return Long.compare(b.request.getDuration(), a.request.getDuration());
+      }
+      if (a.names.size() != b.names.size()) {
+        return Integer.compare(b.names.size(), a.names.size());
+      }
+      return Integer.compare(a.index, b.index);
+    }
+  };
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final long budgetNanos;
+  private final int maxBacktracks;
+  private final Ticker ticker;
+
+  /**
+   * Creates a packer.
+   *
+   * @param budget How long one call may search for. Must not be negative.
+   * @param maxBacktracks How many times one call may move an earlier placement to make room for
+   *     a later one. Must not be negative.
+   */
+  public MeetingPacker(Duration budget, int maxBacktracks) {
+    this(budget, maxBacktracks, Ticker.systemTicker());
+  }
+
+  MeetingPacker(Duration budget, int maxBacktracks, Ticker ticker) {
+    if (budget.isNegative()) {
+      throw new IllegalArgumentException("budget cannot be negative");
+    }
+
+    if (maxBacktracks < 0) {
+      throw new IllegalArgumentException("maxBacktracks cannot be negative");
+    }
+
+    this.budgetNanos = budget.toNanos();
+    this.maxBacktracks = maxBacktracks;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns one placement for each of {@code requests}, in the same order. Meetings are placed
+   * in the minutes free on the calendar of {@code events}, on the day that {@code TimeRange}
+   * covers.
+   */
+  public List<MeetingPlacement> pack(Collection<Event> events, List<MeetingRequest> requests) {
+    long start = ticker.read();
+    Map<String, DayOccupancy> occupancies = DayOccupancy.byAttendee(events);
+
+    Level[] levels = new Level[requests.size()];
+    for (int i = 0; i < levels.length; i++) {
+      if (ticker.read() - start >= budgetNanos) {
+        return outOfTime(requests, levels);
+      }
+      levels[i] = new Level(requests.get(i), i, query.query(occupancies, requests.get(i)));
+    }
+    Arrays.sort(levels, MOST_CONSTRAINED_FIRST);
+
+    // Backtracking can trade one meeting for another, so it only keeps what it found if that
+    // places more meetings than the greedy pass.
+    MeetingPlacement[] best = search(levels, occupancies, 0, start);
+    int placed = countPlaced(best);
+    if (maxBacktracks > 0 && hasConflicts(best)) {
+      for (Level level : levels) {
+        level.reset(occupancies);
+      }
+      MeetingPlacement[] searched = search(levels, occupancies, maxBacktracks, start);
+      if (countPlaced(searched) > placed) {
+        best = searched;
+      }
+    }
+    return Collections.unmodifiableList(Arrays.asList(best));
+  }
+
+  /**
+   * Places {@code levels} in order, going back at most {@code maxBacktracks} times, and returns
+   * the placements in the order the requests were asked for.
+   */
+  private MeetingPlacement[] search(Level[] levels, Map<String, DayOccupancy> occupancies,
+      int maxBacktracks, long start) {
+    int backtracks = 0;
+    int i = 0;
+    while (i < levels.length) {
+      if (ticker.read() - start >= budgetNanos) {
+        for (int k = i; k < levels.length; k++) {
+          if (levels[k].outcome == null) {
+            levels[k].outcome = MeetingPlacement.Outcome.OUT_OF_TIME;
+          }
+        }
+        break;
+      }
+
+      Level level = levels[i];
+      if (level.outcome == MeetingPlacement.Outcome.NO_FREE_TIME || level.givenUp) {
+        i++;
+        continue;
+      }
+      if (level.candidates == null) {
+        level.candidates = candidates(query.query(occupancies, level.request), level.request);
+        level.next = 0;
+      }
+      if (placeNext(level, occupancies)) {
+        i++;
+        continue;
+      }
+
+      // Every time is taken. If this level was moved to make room for a later one, none of its
+      // other times did, so that one is left out and this one goes back to its first choice.
+      // Whatever else was left out while trying gets another chance.
+      level.candidates = null;
+      if (level.retriedFor >= 0) {
+        for (int k = i + 1; k < levels.length; k++) {
+          if (levels[k].givenUp) {
+            levels[k].givenUp = false;
+            levels[k].outcome = null;
+          }
+        }
+        levels[level.retriedFor].givenUp = true;
+        levels[level.retriedFor].outcome = MeetingPlacement.Outcome.CONFLICTS;
+        level.retriedFor = -1;
+        continue;
+      }
+
+      // Otherwise move the last placement that took some of the time, if allowed.
+      int culprit = backtracks < maxBacktracks ? findCulprit(levels, i) : -1;
+      if (culprit < 0) {
+        level.outcome = MeetingPlacement.Outcome.CONFLICTS;
+        level.givenUp = true;
+        i++;
+        continue;
+      }
+      backtracks++;
+      for (int k = i - 1; k >= culprit; k--) {
+        unplace(levels[k], occupancies);
+        if (k > culprit) {
+          levels[k].candidates = null;
+          levels[k].retriedFor = -1;
+        }
+      }
+      levels[culprit].retriedFor = i;
+      i = culprit;
+    }
+
+    MeetingPlacement[] placements = new MeetingPlacement[levels.length];
+    for (Level level : levels) {
+      placements[level.index] = level.outcome == MeetingPlacement.Outcome.PLACED
+          ? MeetingPlacement.placed(level.request, level.when, level.resources)
+          : MeetingPlacement.notPlaced(level.request, level.outcome);
+    }
+    return placements;
+  }
+
+  /**
+   * Returns the placements for a call whose budget ran out before every request was looked at.
+   * Nothing is placed; the requests looked at with no free time say so.
+   */
+  private static List<MeetingPlacement> outOfTime(List<MeetingRequest> requests,
+      Level[] levels) {
+    List<MeetingPlacement> placements = new ArrayList<>(requests.size());
+    for (int i = 0; i < levels.length; i++) {
+      placements.add(MeetingPlacement.notPlaced(requests.get(i),
+          levels[i] != null && levels[i].outcome == MeetingPlacement.Outcome.NO_FREE_TIME
+              ? MeetingPlacement.Outcome.NO_FREE_TIME
+              : MeetingPlacement.Outcome.OUT_OF_TIME));
+    }
+    return Collections.unmodifiableList(placements);
+  }
+
+  private static int countPlaced(MeetingPlacement[] placements) {
+    int placed = 0;
+    for (MeetingPlacement placement : placements) {
+      if (placement.isPlaced()) {
+        placed++;
+      }
+    }
+    return placed;
+  }
+
+  private static boolean hasConflicts(MeetingPlacement[] placements) {
+    for (MeetingPlacement placement : placements) {
+      if (placement.getOutcome() == MeetingPlacement.Outcome.CONFLICTS) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the meeting-length times to try for {@code request} within the timeslots
+   * {@code free}, earliest first. A timeslot on the request's slot grid is tried as it is; a
+   * longer free gap is tried at its start and at its end.
+   */
+  private static List<TimeRange> candidates(Collection<TimeRange> free, MeetingRequest request) {
+    int duration = (int) request.getDuration();
+    List<TimeRange> candidates = new ArrayList<>();
+    for (TimeRange gap : free) {
+      candidates.add(TimeRange.fromStartDuration(gap.start(), duration));
+      if (request.getSlotGranularity() == 0 && gap.duration() > duration) {
+        candidates.add(TimeRange.fromStartEnd(gap.end() - duration, gap.end(), false));
+      }
+    }
+    Collections.sort(candidates, TimeRange.ORDER_BY_START);
+    return candidates;
+  }
+
+  /** Returns how many minutes a meeting could start at within {@code free}. */
+  private static long countStarts(Collection<TimeRange> free, long duration) {
+    long starts = 0;
+    for (TimeRange gap : free) {
+      starts += Math.max(0, gap.duration() - duration + 1);
+    }
+    return starts;
+  }
+
+  /**
+   * Places {@code level} at its next candidate that still has a resource free for every
+   * requirement. Returns false if no candidate is left.
+   */
+  private static boolean placeNext(Level level, Map<String, DayOccupancy> occupancies) {
+    while (level.next < level.candidates.size()) {
+      TimeRange when = level.candidates.get(level.next++);
+      List<String> resources = findResources(level.request, when, occupancies);
+      if (resources == null) {
+        continue;
+      }
+
+      for (String attendee : level.request.getAttendees()) {
+        occupancies.computeIfAbsent(attendee, key -> new DayOccupancy()).markBusy(when);
+      }
+      for (String resource : resources) {
+        occupancies.computeIfAbsent(resource, key -> new DayOccupancy()).markBusy(when);
+      }
+      level.when = when;
+      level.resources = resources;
+      level.outcome = MeetingPlacement.Outcome.PLACED;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a different resource free at {@code when} for each of the resource requirements of
+   * {@code request}, or null if there isn't one for some requirement.
+   */
+  private static List<String> findResources(MeetingRequest request, TimeRange when,
+      Map<String, DayOccupancy> occupancies) {
+    List<ResourceRequirement> requirements = request.getResourceRequirements();
+    String[] chosen = new String[requirements.size()];
+    for (int i = 0; i < chosen.length; i++) {
+      if (!choose(i, requirements, when, occupancies, chosen, new HashSet<>())) {
+        return null;
+      }
+    }
+    return Arrays.asList(chosen);
+  }
+
+  /**
+   * Gives requirement {@code i} a resource free at {@code when}. When every free one is taken,
+   * a requirement holding one is moved to another of its pool, if it can be, so that pools
+   * sharing resources are used the same way {@code FindMeetingQuery} counts them.
+   * {@code tried} holds the resources already offered during this search.
+   */
+  private static boolean choose(int i, List<ResourceRequirement> requirements, TimeRange when,
+      Map<String, DayOccupancy> occupancies, String[] chosen, Set<String> tried) {
+    for (String resource : requirements.get(i).getQualifying()) {
+      DayOccupancy occupancy = occupancies.get(resource);
+      if ((occupancy != null && !occupancy.isFree(when)) || !tried.add(resource)) {
+        continue;
+      }
+      int holder = Arrays.asList(chosen).indexOf(resource);
+      if (holder < 0 || choose(holder, requirements, when, occupancies, chosen, tried)) {
+        chosen[i] = resource;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Takes back the placement of {@code level}, if it has one. */
+  private static void unplace(Level level, Map<String, DayOccupancy> occupancies) {
+    if (level.outcome == MeetingPlacement.Outcome.PLACED) {
+      for (String attendee : level.request.getAttendees()) {
+        occupancies.get(attendee).markFree(level.when);
+      }
+      for (String resource : level.resources) {
+        occupancies.get(resource).markFree(level.when);
+      }
+      level.when = null;
+      level.resources = null;
+    }
+    if (level.outcome != MeetingPlacement.Outcome.NO_FREE_TIME && !level.givenUp) {
+      level.outcome = null;
+    }
+  }
+
+  /**
+   * Returns the last level before {@code i} that is placed and shares a mandatory attendee or a
+   * resource with level {@code i}, or -1 if there is none. Only those placements can have taken
+   * the times level {@code i} needed.
+   */
+  private static int findCulprit(Level[] levels, int i) {
+    for (int j = i - 1; j >= 0; j--) {
+      if (levels[j].outcome == MeetingPlacement.Outcome.PLACED
+          && !Collections.disjoint(levels[j].names, levels[i].names)) {
+        return j;
+      }
+    }
+    return -1;
+  }
+
+  /** The search state of one request. */
+  private static final class Level {
+    final MeetingRequest request;
+    // Where the request was asked for.
+    final int index;
+    // The mandatory attendees and qualifying resources the request could book.
+    final Set<String> names = new HashSet<>();
+    // How many minutes the meeting could start at on the calendar as given.
+    final long starts;
+
+    List<TimeRange> candidates;
+    int next;
+    // The later level this one was moved to make room for, or -1.
+    int retriedFor = -1;
+    // True once the request is left out for good.
+    boolean givenUp;
+    // Null while the request is undecided.
+    MeetingPlacement.Outcome outcome;
+    TimeRange when;
+    List<String> resources;
+
+    Level(MeetingRequest request, int index, Collection<TimeRange> free) {
+      this.request = request;
+      this.index = index;
+      names.addAll(request.getAttendees());
+      for (ResourceRequirement requirement : request.getResourceRequirements()) {
+        names.addAll(requirement.getQualifying());
+      }
+      starts = countStarts(free, request.getDuration());
+      if (free.isEmpty()) {
+        outcome = MeetingPlacement.Outcome.NO_FREE_TIME;
+      }
+    }
+
+    /** Takes back the placement and forgets the search, keeping what is known up front. */
+    void reset(Map<String, DayOccupancy> occupancies) {
+      givenUp = false;
+      unplace(this, occupancies);
+      candidates = null;
+      retriedFor = -1;
+    }
+  }
+}
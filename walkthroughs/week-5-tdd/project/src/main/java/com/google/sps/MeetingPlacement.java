@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where {@code MeetingPacker} put one meeting request, or why it could not put it anywhere.
+ * Placements are considered read-only.
+ */
+public final class MeetingPlacement {
+  /** What happened to a request. */
+  public enum Outcome {
+    /** The meeting was given a time and resources. */
+    PLACED,
+    /** The mandatory attendees and resources are never free together, even before packing. */
+    NO_FREE_TIME,
+    /** Every time that was free before packing went to other meetings. */
+    CONFLICTS,
+    /** The time budget ran out before the request was reached. */
+    OUT_OF_TIME
+  }
+
+  private final MeetingRequest request;
+  private final Outcome outcome;
+  private final TimeRange when;
+  private final List<String> resources;
+
+  private MeetingPlacement(MeetingRequest request, Outcome outcome, TimeRange when,
+      List<String> resources) {
+    this.request = request;
+    this.outcome = outcome;
+    this.when = when;
+    this.resources = resources;
+  }
+
+  /**
+   * Creates the placement of {@code request} at {@code when}, booking {@code resources}, one for
+   * each of the request's resource requirements.
+   */
+  static MeetingPlacement placed(MeetingRequest request, TimeRange when, List<String> resources) {
+    return new MeetingPlacement(request, Outcome.PLACED, when,
+        Collections.unmodifiableList(new ArrayList<>(resources)));
+  }
+
+  /**
+   * Creates the placement of a request that could not be placed for {@code reason}.
+   */
+  static MeetingPlacement notPlaced(MeetingRequest request, Outcome reason) {
+    if (reason == Outcome.PLACED) {
+      throw new IllegalArgumentException("A placed request needs a time");
+    }
+    return new MeetingPlacement(request, reason, null, Collections.emptyList());
+  }
+
+  /**
+   * Returns the request that was placed.
+   */
+  public MeetingRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Returns whether the request was placed and, if not, why.
+   */
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Returns true if the request was given a time.
+   */
+  public boolean isPlaced() {
+    return outcome == Outcome.PLACED;
+  }
+
+  /**
+   * Returns the time the meeting was given, or null if it was not placed.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the names of the resources booked for the meeting, in the order of the request's
+   * resource requirements.
+   */
+  public List<String> getResources() {
+    return resources;
+  }
+
+  /**
+   * Returns the meeting as an event named {@code title}, attended by the mandatory attendees and
+   * the booked resources.
+   */
+  public Event toEvent(String title) {
+    if (!isPlaced()) {
+      throw new IllegalStateException("The request was not placed: " + outcome);
+    }
+    List<String> attendees = new ArrayList<>(request.getAttendees());
+    attendees.addAll(resources);
+    return new Event(title, when, attendees);
+  }
+
+  @Override
+  public String toString() {
+    return isPlaced() ? String.format("Placed at %s with %s", when, resources) : outcome.name();
+  }
+}
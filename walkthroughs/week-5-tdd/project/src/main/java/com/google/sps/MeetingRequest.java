@@ -14,13 +14,22 @@
 
 package com.google.sps;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 public final class MeetingRequest {
+  /**
+   * The most resource requirements a request can hold. Requirements whose pools share resources
+   * are checked together, group by group, so the work grows quickly with their number.
+   */
+  public static final int MAX_RESOURCE_REQUIREMENTS = 8;
 
   /////////////////////////////////////////////
   // WARNING:
@@ -39,6 +48,33 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // How many timeslots to return, best first, ranked by how many optional attendees can make
+  // them. Zero means no ranking: either every optional attendee fits or none are considered.
+  private int ranked_slots;
+
+  // The fewest optional attendees that a ranked timeslot must fit.
+  private int min_optional_attendees;
+
+  // When positive, timeslots are returned as candidates lasting exactly the duration and
+  // starting every {@code slot_granularity} minutes, {@code slot_alignment} minutes past each
+  // multiple of it. Zero returns whole free gaps.
+  private int slot_granularity;
+  private int slot_alignment;
+
+  // The most timeslots to return, earliest first. Zero means no limit.
+  private int max_slots;
+
+  // Resources to book along with the attendees, such as "any one of these rooms that seats 8".
+  private final List<ResourceRequirement> resources = new ArrayList<>();
+
+  // When some attendees can be booked, by attendee. Attendees without working hours can be
+  // booked at any minute.
+  private final Map<String, WorkingHours> working_hours = new HashMap<>();
+
+  // The instant that minute 0 of the calendar stands for. Working hours are placed on the
+  // calendar from it.
+  private Instant epoch = Instant.EPOCH;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -77,4 +113,171 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Asks for the {@code slots} timeslots that fit the most optional attendees, leaving out any
+   * that fit fewer than {@code minOptionalAttendees} of them. Ranked requests look only at busy
+   * times, so ranking can't be combined with working hours, resources, a slot grid or a limit on
+   * the number of slots.
+   */
+  public void setRanking(int slots, int minOptionalAttendees) {
+    if (slots < 0) {
+      throw new IllegalArgumentException("slots cannot be negative");
+    }
+
+    if (slots > 0 && (!working_hours.isEmpty() || !resources.isEmpty() || slot_granularity > 0
+        || max_slots > 0)) {
+      throw new IllegalArgumentException(
+          "ranking cannot be combined with working hours, resources, a slot grid or max slots");
+    }
+
+    this.ranked_slots = slots;
+    this.min_optional_attendees = minOptionalAttendees;
+  }
+
+  /**
+   * Returns how many ranked timeslots to return, or zero if ranking is off.
+   */
+  public int getRankedSlots() {
+    return ranked_slots;
+  }
+
+  /**
+   * Returns the fewest optional attendees that a ranked timeslot must fit.
+   */
+  public int getMinOptionalAttendees() {
+    return min_optional_attendees;
+  }
+
+  /**
+   * Returns candidate slots lasting exactly the duration instead of whole free gaps. Candidates
+   * start at every minute of the calendar that is {@code alignment} past a multiple of
+   * {@code granularity}, such as every half hour with {@code (30, 0)} or at quarter past and
+   * quarter to with {@code (30, 15)}. A {@code granularity} of zero turns this off.
+   */
+  public void setSlotGrid(int granularity, int alignment) {
+    if (granularity < 0) {
+      throw new IllegalArgumentException("granularity cannot be negative");
+    }
+
+    if (alignment < 0 || (alignment > 0 && alignment >= granularity)) {
+      throw new IllegalArgumentException("alignment must be less than granularity");
+    }
+
+    if (granularity > 0) {
+      checkNotRanked("a slot grid");
+    }
+
+    this.slot_granularity = granularity;
+    this.slot_alignment = alignment;
+  }
+
+  /**
+   * Returns the minutes between candidate starts, or zero if whole gaps are returned.
+   */
+  public int getSlotGranularity() {
+    return slot_granularity;
+  }
+
+  /**
+   * Returns how many minutes past each multiple of the granularity candidates start.
+   */
+  public int getSlotAlignment() {
+    return slot_alignment;
+  }
+
+  /**
+   * Returns at most the {@code max} earliest timeslots. Zero means no limit.
+   */
+  public void setMaxSlots(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("max cannot be negative");
+    }
+
+    if (max > 0) {
+      checkNotRanked("max slots");
+    }
+
+    this.max_slots = max;
+  }
+
+  /**
+   * Returns the most timeslots to return, or zero if there is no limit.
+   */
+  public int getMaxSlots() {
+    return max_slots;
+  }
+
+  /**
+   * Also books one resource from {@code requirement}'s pool. Timeslots are only returned if a
+   * qualifying resource is free for all of them, whether or not optional attendees fit. Each
+   * requirement gets a resource of its own, even when pools share resources.
+   */
+  public void addResourceRequirement(ResourceRequirement requirement) {
+    if (requirement == null) {
+      throw new IllegalArgumentException("requirement cannot be null");
+    }
+    if (resources.size() == MAX_RESOURCE_REQUIREMENTS) {
+      throw new IllegalArgumentException(
+          "cannot book more than " + MAX_RESOURCE_REQUIREMENTS + " resources");
+    }
+
+    checkNotRanked("resources");
+
+    resources.add(requirement);
+  }
+
+  /**
+   * Returns a read-only view of the resources to book, one from each requirement.
+   */
+  public List<ResourceRequirement> getResourceRequirements() {
+    return Collections.unmodifiableList(resources);
+  }
+
+  /**
+   * Only lets {@code attendee} be booked inside {@code hours}. Minutes outside of them count as
+   * busy for that attendee, whether they are mandatory or optional.
+   */
+  public void setWorkingHours(String attendee, WorkingHours hours) {
+    if (hours == null) {
+      throw new IllegalArgumentException("hours cannot be null");
+    }
+
+    checkNotRanked("working hours");
+
+    working_hours.put(attendee, hours);
+  }
+
+  /**
+   * Returns a read-only view of the working hours of each attendee that has them.
+   */
+  public Map<String, WorkingHours> getWorkingHours() {
+    return Collections.unmodifiableMap(working_hours);
+  }
+
+  /**
+   * Sets the instant that minute 0 of the calendar stands for. Defaults to
+   * {@code Instant.EPOCH}.
+   */
+  public void setEpoch(Instant epoch) {
+    if (epoch == null) {
+      throw new IllegalArgumentException("epoch cannot be null");
+    }
+
+    this.epoch = epoch;
+  }
+
+  /**
+   * Returns the instant that minute 0 of the calendar stands for.
+   */
+  public Instant getEpoch() {
+    return epoch;
+  }
+
+  /** Throws if ranking is on, since ranked requests can't honour {@code what}. */
+  private void checkNotRanked(String what) {
+    if (ranked_slots > 0) {
+      throw new IllegalArgumentException(what + " cannot be combined with ranking");
+    }
+  }
 }
@@ -0,0 +1,155 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Remembers the answers to recent meeting requests, evicting the least recently used ones. A
+ * request is looked up by everything that affects its answer, with the attendee lists sorted, so
+ * the same question asked with the names in another order is still a hit. The version of the
+ * event source is part of the key, so once any event changes no earlier answer can be returned,
+ * and the older entries are dropped the first time the new version is seen.
+ *
+ * @param <V> the type of the answers, which must not be changed once cached
+ */
+public final class QueryCache<V> {
+  private final Cache<Key, V> answers;
+  private final AtomicLong newestVersion = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Creates a cache holding at most {@code maximumEntries} answers.
+   */
+  public QueryCache(long maximumEntries) {
+    this.answers = CacheBuilder.newBuilder()
+        .maximumSize(maximumEntries)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the answer to {@code request} against version {@code version} of the events,
+   * running {@code query} on a miss. Identical requests that miss at the same time run
+   * {@code query} once.
+   *
+   * <p>Read {@code version} before {@code query} reads any events. An answer may then come
+   * from events newer than its version, which is harmless, but never from older ones.
+   */
+  public V get(MeetingRequest request, long version, Function<MeetingRequest, V> query) {
+    if (newestVersion.getAndAccumulate(version, Math::max) < version) {
+      answers.invalidateAll();
+    }
+
+    try {
+      return answers.get(new Key(request, version), () -> query.apply(request));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the hit and miss counts of the cache.
+   */
+  public CacheStats getStats() {
+    return answers.stats();
+  }
+
+  /**
+   * Returns how many answers are cached right now.
+   */
+  public long size() {
+    return answers.size();
+  }
+
+  /** A request reduced to the parts that affect its answer, at one version of the events. */
+  private static final class Key {
+    private final List<String> attendees;
+    private final List<String> optionalAttendees;
+    private final long duration;
+    private final int rankedSlots;
+    private final int minOptionalAttendees;
+    private final int slotGranularity;
+    private final int slotAlignment;
+    private final int maxSlots;
+    private final Map<String, WorkingHours> workingHours;
+    private final Instant epoch;
+    // Only the qualifying names of each requirement change the answer.
+    private final List<List<String>> resources = new ArrayList<>();
+    private final long version;
+
+    Key(MeetingRequest request, long version) {
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.rankedSlots = request.getRankedSlots();
+      this.minOptionalAttendees = request.getMinOptionalAttendees();
+      this.slotGranularity = request.getSlotGranularity();
+      this.slotAlignment = request.getSlotAlignment();
+      this.maxSlots = request.getMaxSlots();
+      this.workingHours = new TreeMap<>(request.getWorkingHours());
+      this.epoch = request.getEpoch();
+      for (ResourceRequirement requirement : request.getResourceRequirements()) {
+        resources.add(requirement.getQualifying());
+      }
+      this.version = version;
+    }
+
+    private static List<String> sorted(Collection<String> names) {
+      List<String> sorted = new ArrayList<>(names);
+      Collections.sort(sorted);
+      return sorted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return version == that.version && duration == that.duration
+          && rankedSlots == that.rankedSlots
+          && minOptionalAttendees == that.minOptionalAttendees
+          && slotGranularity == that.slotGranularity && slotAlignment == that.slotAlignment
+          && maxSlots == that.maxSlots && attendees.equals(that.attendees)
+          && optionalAttendees.equals(that.optionalAttendees)
+          && workingHours.equals(that.workingHours) && epoch.equals(that.epoch)
+          && resources.equals(that.resources);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(attendees, optionalAttendees, duration, rankedSlots,
+          minOptionalAttendees, slotGranularity, slotAlignment, maxSlots, workingHours, epoch,
+          resources, version);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where {@code FindMeetingQuery} records how long each phase of a query took and how much work
+ * it did. A query given no registry reads no clock and records nothing, so instrumentation costs
+ * nothing unless it is asked for. Thread-safe.
+ */
+public final class QueryMetrics {
+  /** A part of answering a query that is timed on its own. */
+  public enum Phase {
+    /** Copying and sorting the events by start time. */
+    SORT,
+    /** The single pass over sorted events that merges both groups of attendees' busy times. */
+    SWEEP,
+    /** Merging the mandatory attendees' busy times from an index or bitmaps. */
+    MANDATORY_MERGE,
+    /** Merging the optional attendees' busy times from an index or bitmaps. */
+    OPTIONAL_MERGE,
+    /** Merging both groups when either is large enough to merge on the fork/join pool. */
+    PARALLEL_MERGE,
+    /** Finding the free time both groups share, once per day. */
+    MIXED_INTERSECTION
+  }
+
+  /** Something a query counts. */
+  public enum Counter {
+    /** Events read by a sweep, or merged busy times read from an index. */
+    EVENTS_SCANNED,
+    /** Of those, the ones that involve a requested attendee. */
+    EVENTS_MATCHED,
+    /** Timeslots returned. */
+    SLOTS_EMITTED
+  }
+
+  private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+  private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+  /**
+   * Creates an empty registry.
+   */
+  public QueryMetrics() {
+    for (Phase phase : Phase.values()) {
+      phases.put(phase, new LatencyHistogram());
+    }
+    for (Counter counter : Counter.values()) {
+      counters.put(counter, new LongAdder());
+    }
+  }
+
+  /**
+   * Records that one run of {@code phase} took {@code nanos} nanoseconds.
+   */
+  public void record(Phase phase, long nanos) {
+    phases.get(phase).record(nanos);
+  }
+
+  /**
+   * Adds {@code amount} to {@code counter}.
+   */
+  public void count(Counter counter, long amount) {
+    counters.get(counter).add(amount);
+  }
+
+  /**
+   * Returns the durations recorded for {@code phase}, in nanoseconds.
+   */
+  public LatencyHistogram getHistogram(Phase phase) {
+    return phases.get(phase);
+  }
+
+  /**
+   * Returns the total of {@code counter}.
+   */
+  public long getCount(Counter counter) {
+    return counters.get(counter).sum();
+  }
+}
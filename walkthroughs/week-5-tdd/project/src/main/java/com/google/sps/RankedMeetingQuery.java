@@ -0,0 +1,198 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the timeslots that fit every mandatory attendee and as many optional attendees as
+ * possible. Instead of trying subsets of optional attendees, it sweeps once over the times where
+ * an optional attendee becomes busy or free, keeping a count of who is free, and keeps the best
+ * {@code K} slots in a heap. It looks only at busy times: {@code MeetingRequest} refuses to combine
+ * ranking with working hours, resources, a slot grid or a limit on the number of slots.
+ */
+public final class RankedMeetingQuery {
+  private static final int END_OF_DAY = TimeRange.END_OF_DAY + 1;
+
+  /**
+   * Same as {@link #query(BusyTimes, MeetingRequest)}, but indexes {@code events} first.
+   */
+  public List<RankedSlot> query(Collection<Event> events, MeetingRequest request) {
+    return query(new AttendeeIndex(events), request);
+  }
+
+  /**
+   * Returns up to {@link MeetingRequest#getRankedSlots} slots, best first. Each slot is free for
+   * every mandatory attendee, lasts at least the requested duration and fits at least
+   * {@link MeetingRequest#getMinOptionalAttendees} optional attendees for all of its length.
+   * A slot starts when the mandatory attendees become free or when an optional attendee does,
+   * and runs until the mandatory attendees or any of the optional attendees free at its start
+   * become busy.
+   */
+  public List<RankedSlot> query(BusyTimes index, MeetingRequest request) {
+    int limit = request.getRankedSlots();
+    if (limit <= 0) {
+      return Collections.emptyList();
+    }
+
+    Coverage coverage = new Coverage(index, request.getOptionalAttendees());
+
+    // The worst slot kept so far sits at the top, ready to be replaced by a better one.
+    PriorityQueue<RankedSlot> best =
+        new PriorityQueue<>(limit + 1, Collections.reverseOrder(RankedSlot.BEST_FIRST));
+    int busyEnd = TimeRange.START_OF_DAY;
+    for (TimeRange busy : index.getBusyTimes(request.getAttendees())) {
+      addCandidates(busyEnd, busy.start(), coverage, request, best);
+      busyEnd = Math.max(busyEnd, busy.end());
+    }
+    addCandidates(busyEnd, END_OF_DAY, coverage, request, best);
+
+    List<RankedSlot> ranked = new ArrayList<>(best);
+    Collections.sort(ranked, RankedSlot.BEST_FIRST);
+    return Collections.unmodifiableList(ranked);
+  }
+
+  /**
+   * Offers every candidate slot inside the mandatory free time {@code [from, to)} to
+   * {@code best}.
+   */
+  private static void addCandidates(int from, int to, Coverage coverage, MeetingRequest request,
+      PriorityQueue<RankedSlot> best) {
+    if (to - from < request.getDuration()) {
+      return;
+    }
+
+    int point = coverage.pointAt(from);
+    int start = from;
+    while (start < to) {
+      int end = Math.min(to, coverage.nextBusyTime(point));
+      int free = coverage.freeAt(point);
+      if (end - start >= request.getDuration() && free >= request.getMinOptionalAttendees()) {
+        offer(best, new RankedSlot(TimeRange.fromStartEnd(start, end, false), free),
+            request.getRankedSlots());
+      }
+      if (++point == coverage.size()) {
+        return;
+      }
+      start = coverage.timeAt(point);
+    }
+  }
+
+  private static void offer(PriorityQueue<RankedSlot> best, RankedSlot slot, int limit) {
+    if (best.size() < limit) {
+      best.add(slot);
+    } else if (RankedSlot.BEST_FIRST.compare(slot, best.peek()) < 0) {
+      best.poll();
+      best.add(slot);
+    }
+  }
+
+  /**
+   * How many optional attendees are free over the day, as a step function. Point {@code i}
+   * covers {@code [timeAt(i), timeAt(i + 1))}; point 0 always starts at the start of the day.
+   */
+  private static final class Coverage {
+    private final int[] times;
+    private final int[] free;
+    // The first point at or after {@code i} where some optional attendee becomes busy, or
+    // {@code size()} if there is none.
+    private final int[] nextBusy;
+    private final int size;
+
+    Coverage(BusyTimes index, Collection<String> optionalAttendees) {
+      // Each attendee's busy times are merged first, so a double-booked attendee counts once.
+      List<TimeRange> busyTimes = new ArrayList<>();
+      for (String attendee : optionalAttendees) {
+        busyTimes.addAll(index.getBusyTimes(Collections.singleton(attendee)));
+      }
+      int[] starts = new int[busyTimes.size()];
+      int[] ends = new int[busyTimes.size()];
+      for (int i = 0; i < busyTimes.size(); i++) {
+        starts[i] = busyTimes.get(i).start();
+        ends[i] = busyTimes.get(i).end();
+      }
+      Arrays.sort(starts);
+      Arrays.sort(ends);
+
+      int capacity = starts.length + ends.length + 1;
+      times = new int[capacity];
+      free = new int[capacity];
+      boolean[] becomesBusy = new boolean[capacity];
+      int count = 0;
+      int busy = 0;
+      int s = 0;
+      int e = 0;
+      int time = TimeRange.START_OF_DAY;
+      while (true) {
+        boolean started = false;
+        while (s < starts.length && starts[s] == time) {
+          busy++;
+          s++;
+          started = true;
+        }
+        while (e < ends.length && ends[e] == time) {
+          busy--;
+          e++;
+        }
+        times[count] = time;
+        free[count] = optionalAttendees.size() - busy;
+        becomesBusy[count] = started;
+        count++;
+
+        if (s == starts.length && e == ends.length) {
+          break;
+        }
+        time = Math.min(s < starts.length ? starts[s] : Integer.MAX_VALUE,
+            e < ends.length ? ends[e] : Integer.MAX_VALUE);
+      }
+      size = count;
+
+      nextBusy = new int[size + 1];
+      nextBusy[size] = size;
+      for (int i = size - 1; i >= 0; i--) {
+        nextBusy[i] = becomesBusy[i] ? i : nextBusy[i + 1];
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    int timeAt(int point) {
+      return times[point];
+    }
+
+    int freeAt(int point) {
+      return free[point];
+    }
+
+    /** Returns the last point starting at or before {@code time}. */
+    int pointAt(int time) {
+      int found = Arrays.binarySearch(times, 0, size, time);
+      return found >= 0 ? found : -found - 2;
+    }
+
+    /** Returns when the next optional attendee becomes busy after point {@code point} starts. */
+    int nextBusyTime(int point) {
+      int next = nextBusy[point + 1];
+      return next == size ? END_OF_DAY : times[next];
+    }
+  }
+}
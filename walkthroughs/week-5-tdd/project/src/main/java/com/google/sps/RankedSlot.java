@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A timeslot free for every mandatory attendee, together with how many optional attendees are
+ * free for all of it. Ranked slots are considered read-only.
+ */
+public final class RankedSlot {
+  /**
+   * A comparator that puts the slot fitting the most optional attendees first, breaking ties by
+   * the earlier start time.
+   */
+  public static final Comparator<RankedSlot> BEST_FIRST = new Comparator<RankedSlot>() {
+    @Override
+    public int compare(RankedSlot a, RankedSlot b) {
+      if (a.optionalAttendees != b.optionalAttendees) {
+        return Integer.compare(b.optionalAttendees, a.optionalAttendees);
+      }
+      return Integer.compare(a.when.start(), b.when.start());
+    }
+  };
+
+  private final TimeRange when;
+  private final int optionalAttendees;
+
+  public RankedSlot(TimeRange when, int optionalAttendees) {
+    this.when = when;
+    this.optionalAttendees = optionalAttendees;
+  }
+
+  /**
+   * Returns the {@code TimeRange} of the slot.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns how many optional attendees are free for the whole slot.
+   */
+  public int getOptionalAttendees() {
+    return optionalAttendees;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RankedSlot && when.equals(((RankedSlot) other).when)
+        && optionalAttendees == ((RankedSlot) other).optionalAttendees;
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() ^ optionalAttendees;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s with %d optional attendees", when, optionalAttendees);
+  }
+}
@@ -0,0 +1,331 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * How often a {@code RecurringEvent} repeats: every {@code interval} days, or on some weekdays of
+ * every {@code interval} weeks, optionally ending after a number of occurrences or at a last
+ * start time. Days are counted in the same epoch as {@code LongTimeRange}. Recurrences are
+ * immutable.
+ *
+ * <p>This covers the part of RFC 5545 {@code RRULE} that calendars mostly use; see
+ * {@link #parse(String, LocalDate)}.
+ */
+public final class Recurrence {
+  /** The supported {@code FREQ} values. */
+  public enum Frequency {
+    DAILY,
+    WEEKLY
+  }
+
+  private static final int DAYS_PER_WEEK = 7;
+  private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.ofPattern("uuuuMMdd");
+  private static final DateTimeFormatter UNTIL_DATE_TIME =
+      DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss");
+
+  private final Frequency frequency;
+  private final int interval;
+  // Bit {@code d} is set if the series repeats on the weekday {@code d} days after Monday. Empty
+  // for daily series and for weekly series that repeat on the weekday of their first occurrence.
+  private final int weekdays;
+  // The weekday of day 0, counted from Monday. Only weekly series with weekdays need it.
+  private final int dayZeroWeekday;
+  private final long count;
+  private final long until;
+
+  private Recurrence(Frequency frequency, int interval, int weekdays, int dayZeroWeekday,
+      long count, long until) {
+    if (interval < 1) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+
+    if (count < 0) {
+      throw new IllegalArgumentException("count cannot be negative");
+    }
+
+    this.frequency = frequency;
+    this.interval = interval;
+    this.weekdays = weekdays;
+    this.dayZeroWeekday = weekdays == 0 ? 0 : dayZeroWeekday;
+    this.count = count;
+    this.until = until;
+  }
+
+  /**
+   * Returns a recurrence that repeats every {@code interval} days, forever.
+   */
+  public static Recurrence daily(int interval) {
+    return new Recurrence(Frequency.DAILY, interval, 0, 0, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns a recurrence that repeats every {@code interval} weeks on the weekday of the first
+   * occurrence, forever.
+   */
+  public static Recurrence weekly(int interval) {
+    return new Recurrence(Frequency.WEEKLY, interval, 0, 0, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns a recurrence that repeats on each of {@code days} every {@code interval} weeks,
+   * forever. Weeks start on Monday.
+   *
+   * @param dayZero the weekday of day 0 of the epoch
+   */
+  public static Recurrence weekly(int interval, DayOfWeek dayZero, Set<DayOfWeek> days) {
+    if (days.isEmpty()) {
+      throw new IllegalArgumentException("days cannot be empty");
+    }
+
+    int weekdays = 0;
+    for (DayOfWeek day : days) {
+      weekdays |= 1 << (day.getValue() - 1);
+    }
+    return new Recurrence(Frequency.WEEKLY, interval, weekdays, dayZero.getValue() - 1,
+        Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns this recurrence, stopping after {@code count} occurrences including the first.
+   */
+  public Recurrence withCount(long count) {
+    return new Recurrence(frequency, interval, weekdays, dayZeroWeekday, count, until);
+  }
+
+  /**
+   * Returns this recurrence, stopping after the last occurrence that starts at or before
+   * {@code until}, in minutes from the epoch.
+   */
+  public Recurrence withUntil(long until) {
+    return new Recurrence(frequency, interval, weekdays, dayZeroWeekday, count, until);
+  }
+
+  /**
+   * Parses the body of an RFC 5545 {@code RRULE}, such as
+   * {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;COUNT=10}. {@code FREQ} may be {@code DAILY} or
+   * {@code WEEKLY}; {@code INTERVAL}, {@code COUNT}, {@code UNTIL} and, for weekly rules,
+   * {@code BYDAY} without ordinals are understood; {@code WKST} must be {@code MO} if given. Any
+   * other part is rejected rather than ignored, since ignoring it would place occurrences where
+   * the calendar that wrote the rule doesn't.
+   *
+   * @param dayZero the date of day 0 of the epoch. {@code UNTIL} is read in the same time zone as
+   *                the epoch, whether or not it ends with {@code Z}.
+   * @throws IllegalArgumentException if {@code rule} is malformed or outside the subset
+   */
+  public static Recurrence parse(String rule, LocalDate dayZero) {
+    Frequency frequency = null;
+    int interval = 1;
+    int weekdays = 0;
+    long count = Long.MAX_VALUE;
+    long until = Long.MAX_VALUE;
+    for (String part : rule.split(";")) {
+      int equals = part.indexOf('=');
+      if (equals < 0) {
+        throw new IllegalArgumentException("Malformed rule part: " + part);
+      }
+      String name = part.substring(0, equals).toUpperCase(Locale.ROOT);
+      String value = part.substring(equals + 1).toUpperCase(Locale.ROOT);
+      switch (name) {
+        case "FREQ":
+          try {
+            frequency = Frequency.valueOf(value);
+          } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported FREQ: " + value);
+          }
+          break;
+        case "INTERVAL":
+          interval = parseNumber(name, value);
+          break;
+        case "COUNT":
+          count = parseNumber(name, value);
+          break;
+        case "UNTIL":
+          until = parseUntil(value, dayZero);
+          break;
+        case "BYDAY":
+          for (String day : value.split(",")) {
+            weekdays |= 1 << weekdayOf(day);
+          }
+          break;
+        case "WKST":
+          if (!value.equals("MO")) {
+            throw new IllegalArgumentException("Unsupported WKST: " + value);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported rule part: " + name);
+      }
+    }
+
+    if (frequency == null) {
+      throw new IllegalArgumentException("FREQ is required");
+    }
+    if (frequency == Frequency.DAILY && weekdays != 0) {
+      throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY");
+    }
+    return new Recurrence(frequency, interval, weekdays, dayZero.getDayOfWeek().getValue() - 1,
+        count, until);
+  }
+
+  /**
+   * Returns how often the series repeats.
+   */
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  /**
+   * Returns how many days or weeks pass between repetitions.
+   */
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns how many occurrences the series has, or {@code Long.MAX_VALUE} if it has no count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the latest minute an occurrence may start at, or {@code Long.MAX_VALUE} if the series
+   * has no end date.
+   */
+  public long getUntil() {
+    return until;
+  }
+
+  /**
+   * Returns the length of one period in days. Every period repeats the same days.
+   */
+  int periodDays() {
+    return frequency == Frequency.DAILY ? interval : interval * DAYS_PER_WEEK;
+  }
+
+  /**
+   * Returns the first day of the period holding {@code firstDay}, the day of the first
+   * occurrence. Weeks with chosen weekdays start on Monday; other periods start on the first
+   * occurrence itself.
+   */
+  long periodStart(long firstDay) {
+    if (weekdays == 0) {
+      return firstDay;
+    }
+    return firstDay - weekdayOf(firstDay);
+  }
+
+  /**
+   * Returns the days of each period the series repeats on, as sorted offsets from the start of
+   * the period.
+   */
+  int[] periodOffsets() {
+    if (weekdays == 0) {
+      return new int[] {0};
+    }
+
+    int[] offsets = new int[Integer.bitCount(weekdays)];
+    int next = 0;
+    for (int day = 0; day < DAYS_PER_WEEK; day++) {
+      if ((weekdays & (1 << day)) != 0) {
+        offsets[next++] = day;
+      }
+    }
+    return offsets;
+  }
+
+  /** Returns the weekday of {@code day}, counted from Monday. */
+  private int weekdayOf(long day) {
+    return (int) Math.floorMod(dayZeroWeekday + day, (long) DAYS_PER_WEEK);
+  }
+
+  private static int weekdayOf(String day) {
+    switch (day) {
+      case "MO":
+        return 0;
+      case "TU":
+        return 1;
+      case "WE":
+        return 2;
+      case "TH":
+        return 3;
+      case "FR":
+        return 4;
+      case "SA":
+        return 5;
+      case "SU":
+        return 6;
+      default:
+        throw new IllegalArgumentException("Unsupported BYDAY: " + day);
+    }
+  }
+
+  private static int parseNumber(String name, String value) {
+    try {
+      int number = Integer.parseInt(value);
+      if (number >= 0) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new IllegalArgumentException("Malformed " + name + ": " + value);
+  }
+
+  private static long parseUntil(String value, LocalDate dayZero) {
+    String local = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+    LocalDateTime until;
+    try {
+      until = local.length() == 8
+          ? LocalDate.parse(local, UNTIL_DATE).atStartOfDay()
+          : LocalDateTime.parse(local, UNTIL_DATE_TIME);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed UNTIL: " + value);
+    }
+    return ChronoUnit.MINUTES.between(dayZero.atStartOfDay(), until);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Recurrence)) {
+      return false;
+    }
+    Recurrence that = (Recurrence) other;
+    return frequency == that.frequency && interval == that.interval
+        && weekdays == that.weekdays && dayZeroWeekday == that.dayZeroWeekday
+        && count == that.count && until == that.until;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Recurrence: %s every %d, weekdays %s, count %d, until %d", frequency,
+        interval, Integer.toBinaryString(weekdays), count, until);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(frequency, interval, weekdays, dayZeroWeekday, count, until);
+  }
+}
@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An event that repeats. The series is stored as its first occurrence and a {@code Recurrence},
+ * never as a list of occurrences, so an open-ended series costs the same as a single event.
+ * Occurrences are made one at a time, only for the window being asked about. Event times are read
+ * as minutes from the same epoch as {@code LongTimeRange}.
+ *
+ * <p>Every occurrence starts at the time of day of the first one and lasts as long. For weekly
+ * series on chosen weekdays, the first event sets the time of day and the earliest day; it is an
+ * occurrence itself only if it falls on one of those weekdays.
+ */
+public final class RecurringEvent {
+  private final Event first;
+  private final Recurrence recurrence;
+
+  /**
+   * Creates a series.
+   *
+   * @param first The first occurrence. Must be non-null.
+   * @param recurrence How the series repeats. Must be non-null.
+   */
+  public RecurringEvent(Event first, Recurrence recurrence) {
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (recurrence == null) {
+      throw new IllegalArgumentException("recurrence cannot be null");
+    }
+
+    this.first = first;
+    this.recurrence = recurrence;
+  }
+
+  /**
+   * Returns the first occurrence, which holds the series' title and attendees.
+   */
+  public Event getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns how the series repeats.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window}, sorted with
+   * {@link Event#ORDER_BY_TIMERANGE_START_TIME}. Each is made when the iterator reaches it, and
+   * occurrences before the window are skipped by arithmetic rather than by stepping through
+   * them, so the cost depends only on how many occurrences the window holds.
+   */
+  public Iterator<Event> occurrences(LongTimeRange window) {
+    return new Occurrences(window);
+  }
+
+  /**
+   * Returns every occurrence that overlaps {@code window}, in start order.
+   */
+  public List<Event> expand(LongTimeRange window) {
+    List<Event> occurrences = new ArrayList<>();
+    occurrences(window).forEachRemaining(occurrences::add);
+    return occurrences;
+  }
+
+  @Override
+  public int hashCode() {
+    return first.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RecurringEvent && first.equals(((RecurringEvent) other).first)
+        && recurrence.equals(((RecurringEvent) other).recurrence);
+  }
+
+  /**
+   * Walks the series period by period. Occurrence {@code j} of period {@code p} falls on day
+   * {@code periodStart + p * periodDays + offsets[j]}, and its index in the series, which
+   * {@code COUNT} limits, follows from {@code p} and {@code j} alone.
+   */
+  private final class Occurrences implements Iterator<Event> {
+    private final LongTimeRange window;
+    private final long firstDay = LongTimeRange.dayOf(first.getWhen().start());
+    private final long timeOfDay =
+        first.getWhen().start() - firstDay * LongTimeRange.MINUTES_PER_DAY;
+    private final long periodStart = recurrence.periodStart(firstDay);
+    private final long periodDays = recurrence.periodDays();
+    private final int[] offsets = recurrence.periodOffsets();
+    // The days of the first period before the first event, which are not part of the series.
+    private final int skipped;
+
+    private long period;
+    private int offset;
+    private Event next;
+
+    Occurrences(LongTimeRange window) {
+      this.window = window;
+      int skippedDays = 0;
+      while (skippedDays < offsets.length
+          && periodStart + offsets[skippedDays] < firstDay) {
+        skippedDays++;
+      }
+      this.skipped = skippedDays;
+
+      // The first period with an occurrence that may end inside the window. Starting a period
+      // early is harmless: its occurrences are skipped below.
+      long periodMinutes = periodDays * LongTimeRange.MINUTES_PER_DAY;
+      long firstPeriodStart = periodStart * LongTimeRange.MINUTES_PER_DAY;
+      this.period = Math.max(0, Math.floorDiv(
+          window.start() - timeOfDay - first.getWhen().duration() - firstPeriodStart,
+          periodMinutes));
+      this.next = advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Event next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Event current = next;
+      next = advance();
+      return current;
+    }
+
+    /** Returns the next occurrence overlapping the window, or null if there are no more. */
+    private Event advance() {
+      int duration = first.getWhen().duration();
+      while (true) {
+        long day = periodStart + period * periodDays + offsets[offset];
+        long start = day * LongTimeRange.MINUTES_PER_DAY + timeOfDay;
+        long index = period * offsets.length + offset - skipped;
+        if (start >= window.end() || start > recurrence.getUntil()
+            || index >= recurrence.getCount()) {
+          return null;
+        }
+
+        if (++offset == offsets.length) {
+          offset = 0;
+          period++;
+        }
+        if (index >= 0 && start + duration > window.start()) {
+          return first.movedTo(TimeRange.fromStartDuration((int) start, duration));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,270 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * For every minute a meeting could start at on one day, counts how many resources of a
+ * {@code ResourceRequirement} are booked at some point during the meeting. A meeting starting at
+ * {@code s} overlaps a booking {@code [a, b)} exactly when {@code a - duration < s < b}, so each
+ * booking is widened to the left by the duration and added to a difference array; a start is
+ * possible while the count stays below the size of the pool. This finds the starts where one
+ * qualifying resource is free for the whole meeting without searching the resources one at a
+ * time.
+ *
+ * <p>Each requirement needs a resource of its own. When pools share resources, a counter also
+ * covers each group of requirements whose pools are linked through shared resources, over the
+ * union of their pools, and a start is only possible while that union has a free resource for
+ * every requirement in the group. By Hall's theorem, every requirement can then be given a
+ * different resource.
+ *
+ * <p>Like the free times of people, bookings are fed in start order a day at a time, and a
+ * booking that runs past midnight carries over into the next day. An instance belongs to one
+ * query at a time.
+ */
+final class ResourceCounts {
+  private static final ResourceCounts[] NONE = new ResourceCounts[0];
+
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final AttendeeIdSet ids = new AttendeeIdSet();
+  // The widened booking of each resource that may still grow, as {@code [start, end)} of the
+  // booking itself. Widened bookings that touch are merged, so no resource is counted twice.
+  private final long[] pendingStarts;
+  private final long[] pendingEnds;
+  // Entry {@code s - from} counts the resources booked during a meeting starting at {@code s},
+  // once {@code close()} has summed the differences.
+  private final int[] blocked = new int[LongTimeRange.MINUTES_PER_DAY + 1];
+  // How many of the resources must be free at once.
+  private final int needed;
+  private long duration;
+  private int from;
+  private int to;
+
+  private ResourceCounts(List<String> qualifying, int needed) {
+    this.needed = needed;
+    for (int i = 0; i < qualifying.size(); i++) {
+      indexes.put(qualifying.get(i), i);
+    }
+    ids.addAll(qualifying, AttendeeDictionary.getDefault());
+    pendingStarts = new long[qualifying.size()];
+    pendingEnds = new long[qualifying.size()];
+  }
+
+  /**
+   * Returns one counter per resource requirement of {@code request}, and one per group of its
+   * requirements whose pools are linked through shared resources.
+   */
+  static ResourceCounts[] of(MeetingRequest request) {
+    List<ResourceRequirement> requirements = request.getResourceRequirements();
+    if (requirements.isEmpty()) {
+      return NONE;
+    }
+
+    int size = requirements.size();
+    boolean[][] shared = new boolean[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        shared[i][j] = !Collections.disjoint(requirements.get(i).getQualifying(),
+            requirements.get(j).getQualifying());
+      }
+    }
+
+    // Groups are bit sets of requirements. A group that falls apart into unlinked parts has
+    // enough resources exactly when each part does, so it needs no counter of its own.
+    List<ResourceCounts> counts = new ArrayList<>();
+    for (int group = 1; group < 1 << size; group++) {
+      if (!isLinked(group, shared)) {
+        continue;
+      }
+      TreeSet<String> pool = new TreeSet<>();
+      for (int i = 0; i < size; i++) {
+        if ((group & 1 << i) != 0) {
+          pool.addAll(requirements.get(i).getQualifying());
+        }
+      }
+      ResourceCounts count = new ResourceCounts(new ArrayList<>(pool), Integer.bitCount(group));
+      count.reset(request.getDuration());
+      counts.add(count);
+    }
+    return counts.toArray(NONE);
+  }
+
+  /** Returns true if the requirements in {@code group} are linked through shared resources. */
+  private static boolean isLinked(int group, boolean[][] shared) {
+    int reached = Integer.lowestOneBit(group);
+    boolean grown = true;
+    while (grown) {
+      grown = false;
+      for (int i = 0; i < shared.length; i++) {
+        if ((group & ~reached & 1 << i) == 0) {
+          continue;
+        }
+        for (int j = 0; j < shared.length; j++) {
+          if ((reached & 1 << j) != 0 && shared[i][j]) {
+            reached |= 1 << i;
+            grown = true;
+            break;
+          }
+        }
+      }
+    }
+    return reached == group;
+  }
+
+  /** Forgets every booking, ready for a new query. */
+  void reset(long duration) {
+    // A meeting with no length still needs its start minute.
+    this.duration = Math.max(duration, 1);
+    Arrays.fill(pendingStarts, Long.MIN_VALUE);
+    Arrays.fill(pendingEnds, Long.MIN_VALUE);
+  }
+
+  /** Starts counting the meetings that start between {@code from} and {@code to}. */
+  void open(int from, int to) {
+    this.from = from;
+    this.to = to;
+    Arrays.fill(blocked, 0, to - from + 1, 0);
+  }
+
+  /**
+   * Books resource {@code resource}, an index into the qualifying names, from {@code start} to
+   * {@code end}. Each resource's bookings must come in start order.
+   */
+  void addBusy(int resource, int start, int end) {
+    if (start - duration >= pendingEnds[resource]) {
+      count(pendingStarts[resource], pendingEnds[resource]);
+      pendingStarts[resource] = start;
+    }
+    pendingEnds[resource] = Math.max(pendingEnds[resource], end);
+  }
+
+  /**
+   * Books the qualifying resources that {@code event} lists among its attendees.
+   */
+  void addBusy(Event event) {
+    if (!event.hasAnyAttendee(ids)) {
+      return;
+    }
+    for (String attendee : event.getAttendees()) {
+      Integer resource = indexes.get(attendee);
+      if (resource != null) {
+        addBusy(resource, event.getWhen().start(), event.getWhen().end());
+      }
+    }
+  }
+
+  /**
+   * Books the resources by name from {@code index}, for the day opened last.
+   */
+  void addBusy(BusyTimes index) {
+    for (Map.Entry<String, Integer> resource : indexes.entrySet()) {
+      for (TimeRange when : index.getBusyTimes(Collections.singleton(resource.getKey()))) {
+        addBusy(resource.getValue(), when.start(), when.end());
+      }
+    }
+  }
+
+  /**
+   * Books the resources by name from {@code occupancies}, for the day opened last.
+   * {@code busyTimes} is scratch space.
+   */
+  void addBusy(Map<String, DayOccupancy> occupancies, IntervalBuffer busyTimes) {
+    for (Map.Entry<String, Integer> resource : indexes.entrySet()) {
+      DayOccupancy occupancy = occupancies.get(resource.getKey());
+      if (occupancy == null) {
+        continue;
+      }
+      busyTimes.clear();
+      occupancy.getBusyTimes(busyTimes);
+      for (int i = 0; i < busyTimes.size(); i++) {
+        addBusy(resource.getValue(), busyTimes.start(i), busyTimes.end(i));
+      }
+    }
+  }
+
+  /**
+   * Counts the bookings still pending. The pending bookings are kept, so those that run into the
+   * next day are counted there too.
+   */
+  void close() {
+    for (int i = 0; i < pendingStarts.length; i++) {
+      count(pendingStarts[i], pendingEnds[i]);
+    }
+    int running = 0;
+    for (int i = 0; i <= to - from; i++) {
+      running += blocked[i];
+      blocked[i] = running;
+    }
+  }
+
+  /** Adds one to the starts whose meeting overlaps {@code [start, end)}. */
+  private void count(long start, long end) {
+    if (start >= end) {
+      return;
+    }
+    long first = Math.max(start - duration + 1, from);
+    long last = Math.min(end, to);
+    if (first < last) {
+      blocked[(int) (first - from)]++;
+      blocked[(int) (last - from)]--;
+    }
+  }
+
+  /**
+   * Returns true if enough qualifying resources are free for a meeting starting at
+   * {@code start}.
+   */
+  private boolean isFree(int start) {
+    return blocked[start - from] <= pendingStarts.length - needed;
+  }
+
+  /**
+   * Adds the parts of the gaps in {@code free} where every requirement in {@code counts} has a
+   * resource of its own free for the whole meeting to {@code out}. A part may overlap the next
+   * when two runs of possible starts are less than a meeting apart, but every meeting-length
+   * window inside a part has a resource for each requirement.
+   */
+  static void restrict(ResourceCounts[] counts, IntervalBuffer free, long duration,
+      IntervalBuffer out) {
+    for (int i = 0; i < free.size(); i++) {
+      int lastStart = (int) (free.end(i) - duration);
+      int runStart = 0;
+      boolean inRun = false;
+      for (int start = free.start(i); start <= lastStart; start++) {
+        boolean possible = true;
+        for (ResourceCounts count : counts) {
+          possible &= count.isFree(start);
+        }
+        if (possible && !inRun) {
+          runStart = start;
+          inRun = true;
+        } else if (!possible && inRun) {
+          out.add(runStart, (int) (start - 1 + duration));
+          inRun = false;
+        }
+      }
+      if (inRun) {
+        out.add(runStart, free.end(i));
+      }
+    }
+  }
+}
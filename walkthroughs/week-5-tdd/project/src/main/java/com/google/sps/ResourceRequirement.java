@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Asks for any one resource out of a pool that holds at least some number of people, such as
+ * "any one of these 20 rooms that seats 8". A timeslot meets the requirement if one qualifying
+ * resource is free for all of it. Requirements are immutable.
+ */
+public final class ResourceRequirement {
+  private final List<Resource> pool;
+  private final int minCapacity;
+  // The names of the resources in the pool that hold at least {@code minCapacity}, sorted.
+  private final List<String> qualifying;
+
+  /**
+   * Creates a requirement.
+   *
+   * @param pool The resources to choose from. Must be non-null.
+   * @param minCapacity The fewest people a resource must hold to qualify.
+   */
+  public ResourceRequirement(Collection<Resource> pool, int minCapacity) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    this.pool = Collections.unmodifiableList(new ArrayList<>(pool));
+    this.minCapacity = minCapacity;
+    TreeSet<String> names = new TreeSet<>();
+    for (Resource resource : pool) {
+      if (resource.getCapacity() >= minCapacity) {
+        names.add(resource.getName());
+      }
+    }
+    this.qualifying = Collections.unmodifiableList(new ArrayList<>(names));
+  }
+
+  /**
+   * Returns the resources to choose from.
+   */
+  public List<Resource> getPool() {
+    return pool;
+  }
+
+  /**
+   * Returns the fewest people a resource must hold to qualify.
+   */
+  public int getMinCapacity() {
+    return minCapacity;
+  }
+
+  /**
+   * Returns the names of the resources that qualify, sorted and without duplicates.
+   */
+  public List<String> getQualifying() {
+    return qualifying;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ResourceRequirement
+        && pool.equals(((ResourceRequirement) other).pool)
+        && minCapacity == ((ResourceRequirement) other).minCapacity;
+  }
+
+  @Override
+  public int hashCode() {
+    return pool.hashCode() * 31 + minCapacity;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ResourceRequirement: one of %s", qualifying);
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The hours someone can be booked, as a local time of day in their own time zone, on some days
+ * of the week. Hours may run past midnight, as in a night shift from 22:00 to 06:00; they then
+ * belong to the day they start on. Working hours are immutable.
+ */
+public final class WorkingHours {
+  private static final Set<DayOfWeek> WEEKDAYS = Collections.unmodifiableSet(
+      EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+
+  private final ZoneId zone;
+  private final LocalTime start;
+  private final LocalTime end;
+  private final Set<DayOfWeek> days;
+
+  /**
+   * Creates working hours.
+   *
+   * @param zone The time zone {@code start} and {@code end} are read in. Must be non-null.
+   * @param start When work starts. Must be non-null.
+   * @param end When work ends. Must be non-null and differ from {@code start}; if it is before
+   *     {@code start}, work ends on the next day.
+   * @param days The days work starts on. Must be non-null.
+   */
+  public WorkingHours(ZoneId zone, LocalTime start, LocalTime end, Set<DayOfWeek> days) {
+    if (zone == null || start == null || end == null || days == null) {
+      throw new IllegalArgumentException("working hours cannot have null parts");
+    }
+
+    if (start.equals(end)) {
+      throw new IllegalArgumentException("start and end cannot be equal");
+    }
+
+    this.zone = zone;
+    this.start = start;
+    this.end = end;
+    this.days = days.isEmpty()
+        ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(days));
+  }
+
+  /**
+   * Returns working hours from {@code start} to {@code end}, Monday to Friday.
+   */
+  public static WorkingHours weekdays(ZoneId zone, LocalTime start, LocalTime end) {
+    return new WorkingHours(zone, start, end, WEEKDAYS);
+  }
+
+  /**
+   * Returns the time zone the hours are read in.
+   */
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  /**
+   * Returns the local time work starts.
+   */
+  public LocalTime getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the local time work ends.
+   */
+  public LocalTime getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns the days of the week work starts on.
+   */
+  public Set<DayOfWeek> getDays() {
+    return days;
+  }
+
+  /**
+   * Returns a mask of day {@code day} where every minute outside of these working hours is busy.
+   * Minute {@code m} of the calendar is the instant {@code epoch} plus {@code m} minutes, so the
+   * mask follows the zone's daylight saving changes from one day to the next.
+   */
+  public DayOccupancy toMask(Instant epoch, long day) {
+    Instant dayStart = epoch.plus(Duration.ofMinutes(day * LongTimeRange.MINUTES_PER_DAY));
+    Instant dayEnd = dayStart.plus(Duration.ofMinutes(LongTimeRange.MINUTES_PER_DAY));
+
+    // Shifts that started the local day before can still be running.
+    LocalDate date = dayStart.atZone(zone).toLocalDate().minusDays(1);
+    LocalDate lastDate = dayEnd.atZone(zone).toLocalDate();
+    DayOccupancy mask = new DayOccupancy();
+    long free = 0;
+    for (; !date.isAfter(lastDate); date = date.plusDays(1)) {
+      if (!days.contains(date.getDayOfWeek())) {
+        continue;
+      }
+      ZonedDateTime shiftStart = ZonedDateTime.of(date, start, zone);
+      ZonedDateTime shiftEnd =
+          ZonedDateTime.of(end.isAfter(start) ? date : date.plusDays(1), end, zone);
+      long from = clip(Duration.between(dayStart, shiftStart.toInstant()).toMinutes());
+      long to = clip(Duration.between(dayStart, shiftEnd.toInstant()).toMinutes());
+      if (from >= to) {
+        continue;
+      }
+      markBusy(mask, free, from);
+      free = Math.max(free, to);
+    }
+    markBusy(mask, free, LongTimeRange.MINUTES_PER_DAY);
+    return mask;
+  }
+
+  private static long clip(long minute) {
+    return Math.max(0, Math.min(minute, LongTimeRange.MINUTES_PER_DAY));
+  }
+
+  private static void markBusy(DayOccupancy mask, long start, long end) {
+    if (start < end) {
+      mask.markBusy(TimeRange.fromStartEnd((int) start, (int) end, false));
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof WorkingHours)) {
+      return false;
+    }
+    WorkingHours that = (WorkingHours) other;
+    return zone.equals(that.zone) && start.equals(that.start) && end.equals(that.end)
+        && days.equals(that.days);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(zone, start, end, days);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("WorkingHours: %s-%s %s %s", start, end, zone, days);
+  }
+}
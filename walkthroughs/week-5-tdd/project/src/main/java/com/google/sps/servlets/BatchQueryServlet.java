@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.CalendarJson;
+import com.google.sps.MeetingRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests in one call. Each request is answered exactly as
+ * {@code /query} answers it, ranked or not and through the same query cache, reading only the
+ * busy times of the people it names, so a batch never loads the whole calendar. The requests are
+ * evaluated in parallel, and the answers are written back as a JSON array in request order as
+ * soon as each one is ready. A batch with a null request is refused before any is evaluated.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  // Requests waiting for a thread. When the queue is full, the request thread runs the query
+  // itself, which slows down the caller instead of growing the queue without bound.
+  private static final int QUEUE_CAPACITY = 256;
+
+  private ExecutorService executor;
+
+  @Override
+  public void init() {
+    executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response)
+      throws IOException, ServletException {
+    // Convert the JSON to an array of MeetingRequests, reading straight from the request.
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = CalendarJson.gson()
+          .fromJson(new JsonReader(request.getReader()), MeetingRequest[].class);
+    } catch (JsonParseException | NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+    for (int i = 0; i < meetingRequests.length; i++) {
+      if (meetingRequests[i] == null) {
+        response.sendError(
+            HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request at index " + i + ".");
+        return;
+      }
+    }
+
+    // Start every query before writing anything, so later requests run while earlier answers
+    // are being written.
+    List<Future<Object>> answers = new ArrayList<>();
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      answers.add(executor.submit(() -> MeetingAnswers.find(meetingRequest)));
+    }
+
+    // Stream the answers back in request order.
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    try {
+      writer.beginArray();
+      for (int i = 0; i < answers.size(); i++) {
+        MeetingAnswers.write(answers.get(i).get(), meetingRequests[i], writer);
+        writer.flush();
+      }
+      writer.endArray();
+      writer.flush();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("Interrupted while waiting for meeting times", e);
+    } catch (ExecutionException e) {
+      throw new ServletException("Could not find meeting times", e.getCause());
+    } finally {
+      for (Future<Object> answer : answers) {
+        answer.cancel(true);
+      }
+    }
+  }
+}
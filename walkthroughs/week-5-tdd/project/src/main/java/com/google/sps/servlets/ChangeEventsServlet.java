@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.users.UserService;
+import com.google.appengine.api.users.UserServiceFactory;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import com.google.sps.FreeBusyCache;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Creates, updates and deletes events. {@code /create-event} and {@code /delete-event} take one
+ * event; {@code /update-event} takes {@code {"old": event, "new": event}}. An event is found by
+ * being equal to the one given, and deleting an event that doesn't exist does nothing. Changes go
+ * through the free/busy cache, so cached busy times and {@code /get-events} see them at once.
+ * Only administrators signed in through the App Engine Users service may change events; anyone
+ * else gets a 403, and a change to a read-only calendar a 409, before the body is read. A body
+ * may be at most {@code MAX_BODY_BYTES} long.
+ */
+@WebServlet(urlPatterns = {"/create-event", "/update-event", "/delete-event"})
+public class ChangeEventsServlet extends HttpServlet {
+  // Far more than any one event needs. Every attendee of an event added is kept in the attendee
+  // dictionary for good, so one request must not be able to add many.
+  private static final int MAX_BODY_BYTES = 64 * 1024;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    UserService users = UserServiceFactory.getUserService();
+    if (!users.isUserLoggedIn()) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN, "Sign in as an administrator.");
+      return;
+    }
+    if (!users.isUserAdmin()) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN, "Only administrators may do that.");
+      return;
+    }
+
+    if (SharedCalendar.getEventSource().isReadOnly()) {
+      // POST is allowed; it's the calendar, such as an event file, that can't be changed.
+      response.sendError(HttpServletResponse.SC_CONFLICT, "The calendar is read-only.");
+      return;
+    }
+
+    if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+      return;
+    }
+    // A chunked body doesn't give its length up front, so read one byte past the limit.
+    byte[] bytes =
+        ByteStreams.toByteArray(ByteStreams.limit(request.getInputStream(), MAX_BODY_BYTES + 1));
+    if (bytes.length > MAX_BODY_BYTES) {
+      response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+      return;
+    }
+    String body = new String(bytes, StandardCharsets.UTF_8);
+
+    String path = request.getServletPath();
+    Event oldEvent = null;
+    Event event;
+    try {
+      if ("/update-event".equals(path)) {
+        JsonObject change = CalendarJson.gson().fromJson(body, JsonObject.class);
+        if (change == null) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected old and new events.");
+          return;
+        }
+        oldEvent = CalendarJson.gson().fromJson(change.get("old"), Event.class);
+        event = CalendarJson.gson().fromJson(change.get("new"), Event.class);
+        if (oldEvent == null) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an old event.");
+          return;
+        }
+      } else {
+        event = CalendarJson.gson().fromJson(body, Event.class);
+      }
+    } catch (JsonParseException | NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (event == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+      return;
+    }
+
+    FreeBusyCache cache = SharedCalendar.getFreeBusyCache();
+    try {
+      if ("/create-event".equals(path)) {
+        cache.addEvent(event);
+      } else if ("/delete-event".equals(path)) {
+        cache.removeEvent(event);
+      } else {
+        cache.updateEvent(oldEvent, event);
+      }
+    } catch (UncheckedIOException e) {
+      response.sendError(
+          HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Could not save the change.");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+}
@@ -14,23 +14,60 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import com.google.sps.EventSource;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Lists every event. Every open scheduler page polls this, so the JSON is built once per version
+ * of the event source and then served from memory, gzip-compressed when the client allows it and
+ * as a 304 when the client's copy is current.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final Type EVENTS_TYPE = new TypeToken<Collection<Event>>() {}.getType();
+
+  private volatile PrecomputedResponse events;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    EventSource source = SharedCalendar.getEventSource();
+    PrecomputedResponse current = events;
+    if (current == null || current.getVersion() != source.getVersion()) {
+      current = rebuild(source);
+    }
+    current.writeTo(request, response);
+  }
+
+  /**
+   * Serializes the events again, unless another request already did while this one waited.
+   */
+  private synchronized PrecomputedResponse rebuild(EventSource source) throws IOException {
+    // Read the version first: if the events change while they are being written, the next
+    // request sees a newer version and rebuilds again.
+    long version = source.getVersion();
+    if (events != null && events.getVersion() == version) {
+      return events;
+    }
+
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    JsonWriter writer = new JsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8));
+    CalendarJson.gson().toJson(source.getAllEvents(), EVENTS_TYPE, writer);
+    writer.flush();
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    events = new PrecomputedResponse(version, json.toByteArray());
+    return events;
   }
 }
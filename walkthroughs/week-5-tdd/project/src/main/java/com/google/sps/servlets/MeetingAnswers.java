@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.BusyTimes;
+import com.google.sps.CalendarJson;
+import com.google.sps.MeetingRequest;
+import com.google.sps.RankedMeetingQuery;
+import com.google.sps.RankedSlot;
+import com.google.sps.TimeRange;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Answers meeting requests for both {@code /query} and {@code /batch-query}, so that a request
+ * gets the same answer, from the same cache, whichever way it is asked.
+ */
+final class MeetingAnswers {
+  private static final Type ANSWER_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+  private static final Type RANKED_ANSWER_TYPE = new TypeToken<List<RankedSlot>>() {}.getType();
+
+  private MeetingAnswers() {}
+
+  /**
+   * Finds the possible meeting times. Ranked requests get the best slots along with how many
+   * optional attendees each one fits. The request is answered against the calendar's own epoch,
+   * which replaces whatever epoch it carries.
+   */
+  static Object find(MeetingRequest meetingRequest) {
+    // A client's epoch would only misplace the events, and each new one would take up room in the
+    // query and working hours caches.
+    meetingRequest.setEpoch(SharedCalendar.getEpoch());
+    // Read the version before any busy times, as the cache asks.
+    long version = SharedCalendar.getEventSource().getVersion();
+    return SharedCalendar.getQueryCache().get(meetingRequest, version, MeetingAnswers::query);
+  }
+
+  private static Object query(MeetingRequest meetingRequest) {
+    // Events.events all take place on the same day, day 0.
+    long day = 0;
+    BusyTimes busyTimes = SharedCalendar.getBusyTimes(day);
+    if (meetingRequest.getRankedSlots() > 0) {
+      return new RankedMeetingQuery().query(busyTimes, meetingRequest);
+    }
+    return SharedCalendar.getFindMeetingQuery().query(busyTimes, meetingRequest, day);
+  }
+
+  /** Writes an answer from {@link #find} for {@code meetingRequest} as JSON. */
+  static void write(Object answer, MeetingRequest meetingRequest, JsonWriter writer) {
+    CalendarJson.gson().toJson(answer,
+        meetingRequest.getRankedSlots() > 0 ? RANKED_ANSWER_TYPE : ANSWER_TYPE, writer);
+  }
+}
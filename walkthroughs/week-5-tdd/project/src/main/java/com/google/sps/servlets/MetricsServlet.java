@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.cache.CacheStats;
+import com.google.sps.CalendarJson;
+import com.google.sps.FreeBusyCache;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Reports the scheduler's internal counters as JSON. */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    FreeBusyCache cache = SharedCalendar.getFreeBusyCache();
+    CacheStats stats = cache.getStats();
+
+    Map<String, Object> freeBusyCache = new LinkedHashMap<>();
+    freeBusyCache.put("size", cache.size());
+    freeBusyCache.put("hits", stats.hitCount());
+    freeBusyCache.put("misses", stats.missCount());
+    freeBusyCache.put("hitRate", stats.hitRate());
+    freeBusyCache.put("rebuilds", stats.loadCount());
+    freeBusyCache.put("evictions", stats.evictionCount());
+    freeBusyCache.put("invalidations", cache.getInvalidationCount());
+
+    QueryCache<Object> answers = SharedCalendar.getQueryCache();
+    CacheStats answerStats = answers.getStats();
+    Map<String, Object> queryCache = new LinkedHashMap<>();
+    queryCache.put("size", answers.size());
+    queryCache.put("hits", answerStats.hitCount());
+    queryCache.put("misses", answerStats.missCount());
+    queryCache.put("hitRate", answerStats.hitRate());
+    queryCache.put("evictions", answerStats.evictionCount());
+
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("freeBusyCache", freeBusyCache);
+    metrics.put("queryCache", queryCache);
+
+    // The executor only exists once /query has started.
+    QueryExecutor executor =
+        (QueryExecutor) getServletContext().getAttribute(QueryServlet.EXECUTOR_ATTRIBUTE);
+    if (executor != null) {
+      Map<String, Object> queryExecutor = new LinkedHashMap<>();
+      queryExecutor.put("queueDepth", executor.getQueueDepth());
+      queryExecutor.put("activeThreads", executor.getActiveThreads());
+      queryExecutor.put("started", executor.getStartedCount());
+      queryExecutor.put("averageWaitMillis", executor.getAverageWaitMillis());
+      queryExecutor.put("maxWaitMillis", executor.getMaxWaitMillis());
+      queryExecutor.put("rejected", executor.getRejectedCount());
+      queryExecutor.put("timedOut", executor.getTimedOutCount());
+      metrics.put("queryExecutor", queryExecutor);
+    }
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(CalendarJson.gson().toJson(metrics));
+  }
+}
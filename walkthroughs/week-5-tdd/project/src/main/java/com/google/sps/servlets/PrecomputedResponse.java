@@ -0,0 +1,152 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A JSON body serialized once and kept both as is and gzip-compressed, each with its own strong
+ * ETag taken from a hash of the content. Serving it is a header check and a copy of bytes: a
+ * client that already has the body gets a 304, and a client that accepts gzip gets the smaller
+ * copy without compressing it again.
+ */
+final class PrecomputedResponse {
+  private final long version;
+  private final byte[] identity;
+  private final byte[] gzipped;
+  private final String identityTag;
+  private final String gzipTag;
+
+  /**
+   * Precomputes {@code json}, which was built from version {@code version} of its source.
+   */
+  PrecomputedResponse(long version, byte[] json) {
+    this.version = version;
+    this.identity = json;
+    this.gzipped = gzip(json);
+    String hash = Hashing.murmur3_128().hashBytes(json).toString();
+    this.identityTag = "\"" + hash + "\"";
+    // The compressed bytes differ, so they need a validator of their own.
+    this.gzipTag = "\"" + hash + "-gzip\"";
+  }
+
+  /**
+   * Returns the version of the source the body was built from.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Answers {@code request} with the body, or with 304 Not Modified if the client's copy is
+   * current.
+   */
+  void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    response.setHeader("ETag", gzip ? gzipTag : identityTag);
+    response.setHeader("Vary", "Accept-Encoding");
+    // Clients may keep the body but must check it is current before using it.
+    response.setHeader("Cache-Control", "no-cache");
+    if (matches(request.getHeader("If-None-Match"))) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] body = gzip ? gzipped : identity;
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns true if the {@code If-None-Match} header names either copy of the body.
+   */
+  private boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      // If-None-Match uses the weak comparison, so a W/ prefix is ignored.
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(identityTag) || tag.equals(gzipTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the {@code Accept-Encoding} header allows gzip, either by name or through
+   * {@code *}, with a quality above zero.
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    Boolean gzip = null;
+    Boolean any = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase();
+      boolean accepted = quality(parts) > 0;
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        gzip = accepted;
+      } else if (name.equals("*")) {
+        any = accepted;
+      }
+    }
+    return gzip != null ? gzip : any != null && any;
+  }
+
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      // Writing to memory can't fail.
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed pool of threads with a bounded queue for scheduling work, kept apart from the
+ * container's request threads so slow queries can't take all of them. When the queue is full,
+ * new work is refused rather than queued, so callers can shed load. It counts how long work
+ * waits in the queue and how often it is refused or times out.
+ */
+final class QueryExecutor {
+  private final ThreadPoolExecutor executor;
+  private final LongAdder started = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+
+  QueryExecutor(int threads, int queueCapacity) {
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Queues {@code task}.
+   *
+   * @throws RejectedExecutionException if the queue is full or the executor is shut down.
+   */
+  <T> Future<T> submit(Callable<T> task) {
+    long queued = System.nanoTime();
+    try {
+      return executor.submit(() -> {
+        long wait = System.nanoTime() - queued;
+        started.increment();
+        waitNanos.add(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives up on {@code future} because its caller stopped waiting, dropping it from the queue if
+   * it has not started.
+   */
+  void timeOut(Future<?> future) {
+    timedOut.increment();
+    future.cancel(true);
+    if (future instanceof Runnable) {
+      executor.remove((Runnable) future);
+    }
+  }
+
+  /**
+   * Returns how many tasks are waiting for a thread.
+   */
+  int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Returns how many threads are running a task.
+   */
+  int getActiveThreads() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Returns how many tasks have left the queue and started.
+   */
+  long getStartedCount() {
+    return started.sum();
+  }
+
+  /**
+   * Returns the average time a started task waited in the queue, in milliseconds.
+   */
+  double getAverageWaitMillis() {
+    long count = started.sum();
+    return count == 0 ? 0 : waitNanos.sum() / 1e6 / count;
+  }
+
+  /**
+   * Returns the longest time a started task waited in the queue, in milliseconds.
+   */
+  double getMaxWaitMillis() {
+    return maxWaitNanos.get() / 1e6;
+  }
+
+  /**
+   * Returns how many tasks were refused because the queue was full.
+   */
+  long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Returns how many tasks were given up on because they took too long.
+   */
+  long getTimedOutCount() {
+    return timedOut.sum();
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
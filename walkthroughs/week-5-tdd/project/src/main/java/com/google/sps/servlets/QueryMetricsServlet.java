@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarJson;
+import com.google.sps.LatencyHistogram;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.HttpConstraint;
+import javax.servlet.annotation.ServletSecurity;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how long each phase of the scheduler's queries takes, as percentiles in nanoseconds,
+ * and how many events and timeslots they went through. Queries are only timed while the
+ * {@code sps.queryMetrics} system property is "true"; otherwise this reports that they are not.
+ * Only administrators may read it.
+ */
+@WebServlet("/admin/query-metrics")
+@ServletSecurity(@HttpConstraint(rolesAllowed = "admin"))
+public class QueryMetricsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryMetrics metrics = SharedCalendar.getQueryMetrics();
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("enabled", metrics != null);
+    if (metrics != null) {
+      Map<String, Object> phases = new LinkedHashMap<>();
+      for (QueryMetrics.Phase phase : QueryMetrics.Phase.values()) {
+        phases.put(phase.name(), describe(metrics.getHistogram(phase)));
+      }
+      Map<String, Object> counters = new LinkedHashMap<>();
+      for (QueryMetrics.Counter counter : QueryMetrics.Counter.values()) {
+        counters.put(counter.name(), metrics.getCount(counter));
+      }
+      report.put("phases", phases);
+      report.put("counters", counters);
+    }
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(CalendarJson.gson().toJson(report));
+  }
+
+  private static Map<String, Object> describe(LatencyHistogram histogram) {
+    Map<String, Object> described = new LinkedHashMap<>();
+    described.put("count", histogram.getCount());
+    described.put("meanNanos", histogram.getMean());
+    described.put("p50Nanos", histogram.getValueAtPercentile(50));
+    described.put("p90Nanos", histogram.getValueAtPercentile(90));
+    described.put("p99Nanos", histogram.getValueAtPercentile(99));
+    described.put("p999Nanos", histogram.getValueAtPercentile(99.9));
+    described.put("maxNanos", histogram.getMax());
+    return described;
+  }
+}
@@ -14,38 +14,166 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
+import com.google.sps.CalendarJson;
 import com.google.sps.MeetingRequest;
-import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-@WebServlet("/query")
+/**
+ * Finds meeting times. The request thread only parses the request; the query itself runs on a
+ * bounded executor of its own, and the request thread goes back to the container. A query that
+ * can't be queued, or that takes longer than {@code TIMEOUT_MILLIS}, gets a 503.
+ */
+@WebServlet(urlPatterns = "/query", asyncSupported = true)
 public class QueryServlet extends HttpServlet {
+  /** The name of the servlet context attribute holding the executor, for {@code /metrics}. */
+  static final String EXECUTOR_ATTRIBUTE = QueryExecutor.class.getName();
+
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  // Queries waiting for a thread. Past this, new queries are refused instead of queued, since
+  // they would likely time out anyway.
+  private static final int QUEUE_CAPACITY = 64;
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  private QueryExecutor executor;
+
+  @Override
+  public void init() {
+    executor = new QueryExecutor(THREADS, QUEUE_CAPACITY);
+    getServletContext().setAttribute(EXECUTOR_ATTRIBUTE, executor);
+  }
+
+  @Override
+  public void destroy() {
+    getServletContext().removeAttribute(EXECUTOR_ATTRIBUTE);
+    executor.shutdown();
+  }
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+    // Convert the JSON to an instance of MeetingRequest, reading straight from the request.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.gson()
+          .fromJson(new JsonReader(request.getReader()), MeetingRequest.class);
+    } catch (JsonParseException | NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+
+    if (!request.isAsyncSupported()) {
+      // A filter in front of this servlet doesn't allow async, so answer on this thread.
+      write(MeetingAnswers.find(meetingRequest), meetingRequest, response);
+      return;
+    }
+
+    AsyncContext async = request.startAsync();
+    async.setTimeout(TIMEOUT_MILLIS);
+    // Whoever sets this first, the query or the timeout, writes the response.
+    AtomicBoolean answered = new AtomicBoolean();
+    // Filled in once the query is submitted. The listener must be added before that, since a
+    // fast query completes the context, after which listeners can't be added.
+    AtomicReference<Future<Void>> query = new AtomicReference<>();
+    async.addListener(new AsyncListener() {
+      @Override
+      public void onTimeout(AsyncEvent event) throws IOException {
+        if (answered.compareAndSet(false, true)) {
+          // Null only if the timeout beat the submit; the query then finds the request answered
+          // and writes nothing.
+          Future<Void> running = query.get();
+          if (running != null) {
+            executor.timeOut(running);
+          }
+          ((HttpServletResponse) event.getAsyncContext().getResponse()).sendError(
+              HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The query took too long.");
+          event.getAsyncContext().complete();
+        }
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        if (answered.compareAndSet(false, true)) {
+          Future<Void> running = query.get();
+          if (running != null) {
+            running.cancel(true);
+          }
+          event.getAsyncContext().complete();
+        }
+      }
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+      @Override
+      public void onComplete(AsyncEvent event) {}
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+      @Override
+      public void onStartAsync(AsyncEvent event) {}
+    });
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    try {
+      query.set(executor.submit(() -> {
+        answerAsync(meetingRequest, async, answered);
+        return null;
+      }));
+    } catch (RejectedExecutionException e) {
+      if (answered.compareAndSet(false, true)) {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many queries.");
+        async.complete();
+      }
+    }
+  }
+
+  /**
+   * Runs on the executor. Finds the meeting times and writes them, unless the request has
+   * already timed out.
+   */
+  private static void answerAsync(MeetingRequest meetingRequest, AsyncContext async,
+      AtomicBoolean answered) throws IOException {
+    HttpServletResponse response = (HttpServletResponse) async.getResponse();
+    Object answer;
+    try {
+      answer = MeetingAnswers.find(meetingRequest);
+    } catch (RuntimeException e) {
+      if (answered.compareAndSet(false, true)) {
+        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        async.complete();
+      }
+      throw e;
+    }
+
+    if (answered.compareAndSet(false, true)) {
+      try {
+        write(answer, meetingRequest, response);
+      } finally {
+        async.complete();
+      }
+    }
+  }
 
-    // Send the JSON back as the response
+  /** Writes the times as JSON straight to the response. */
+  private static void write(Object answer, MeetingRequest meetingRequest,
+      HttpServletResponse response) throws IOException {
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    MeetingAnswers.write(answer, meetingRequest, writer);
+    writer.flush();
   }
 }
@@ -0,0 +1,179 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.BusyTimes;
+import com.google.sps.ColumnarEventFile;
+import com.google.sps.DatastoreEventSource;
+import com.google.sps.EventSource;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.FreeBusyCache;
+import com.google.sps.InMemoryEventSource;
+import com.google.sps.LoggedEventSource;
+import com.google.sps.QueryCache;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the calendar data that the servlets share, so that a change made through one servlet is
+ * seen by all of them.
+ */
+final class SharedCalendar {
+  // Enough attendee-days for every person in a large directory to be cached for a week.
+  private static final long FREE_BUSY_CACHE_ENTRIES = 500_000;
+
+  // Room for many users' recent questions; each answer is a short list of timeslots.
+  private static final long QUERY_CACHE_ENTRIES = 10_000;
+
+  // Set this system property to "datastore", for example in appengine-web.xml, to read events
+  // from Datastore instead of holding the sample events in memory, to "disk" to keep them in
+  // memory and log every change under EVENT_LOG_DIRECTORY_PROPERTY, or to "file" to map the
+  // read-only event file at EVENT_FILE_PROPERTY.
+  private static final String EVENT_SOURCE_PROPERTY = "sps.eventSource";
+
+  // The event file, written with the sample events if it doesn't exist yet.
+  private static final String EVENT_FILE_PROPERTY = "sps.eventFile";
+  private static final String DEFAULT_EVENT_FILE = "events.bin";
+
+  // The directory of the event log, relative to the working directory unless absolute.
+  private static final String EVENT_LOG_DIRECTORY_PROPERTY = "sps.eventLogDirectory";
+  private static final String DEFAULT_EVENT_LOG_DIRECTORY = "event-log";
+
+  // Changes between snapshots of the event log, which is also the most a restart replays.
+  private static final int EVENT_LOG_COMPACT_EVERY = 1_000;
+
+  // Set this system property to "true" to time the phases of every query for
+  // /admin/query-metrics. Otherwise queries read no clock at all.
+  private static final String QUERY_METRICS_PROPERTY = "sps.queryMetrics";
+
+  // The instant that minute 0 of the events stands for, such as "2020-01-06T00:00:00Z". Requests
+  // are answered against it whatever epoch they carry, since the events are stored against it.
+  private static final String EPOCH_PROPERTY = "sps.epoch";
+
+  private static final Instant EPOCH = Instant.parse(System.getProperty(EPOCH_PROPERTY,
+      Instant.EPOCH.toString()));
+
+  private static final EventSource EVENT_SOURCE = newEventSource();
+
+  private static final FreeBusyCache FREE_BUSY_CACHE =
+      new FreeBusyCache(EVENT_SOURCE, FREE_BUSY_CACHE_ENTRIES);
+
+  private static final QueryCache<Object> QUERY_CACHE = new QueryCache<>(QUERY_CACHE_ENTRIES);
+
+  private static final QueryMetrics QUERY_METRICS =
+      Boolean.getBoolean(QUERY_METRICS_PROPERTY) ? new QueryMetrics() : null;
+
+  // Merges the calendars of large requests. Query threads block on it, so it is kept apart from
+  // the common pool that everything else in the process shares.
+  private static final ForkJoinPool MERGE_POOL =
+      new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  private static final FindMeetingQuery FIND_MEETING_QUERY =
+      new FindMeetingQuery(MERGE_POOL, QUERY_METRICS);
+
+  /**
+   * Returns where the servlets read and write events.
+   */
+  static EventSource getEventSource() {
+    return EVENT_SOURCE;
+  }
+
+  /**
+   * Returns the instant that minute 0 of the events stands for.
+   */
+  static Instant getEpoch() {
+    return EPOCH;
+  }
+
+  /**
+   * Returns the cache of each attendee's busy times per day.
+   */
+  static FreeBusyCache getFreeBusyCache() {
+    return FREE_BUSY_CACHE;
+  }
+
+  /**
+   * Returns the busy times on {@code day}, in minutes from the start of that day. An event file
+   * answers straight from its columns; every other source goes through the free/busy cache.
+   */
+  static BusyTimes getBusyTimes(long day) {
+    if (EVENT_SOURCE instanceof ColumnarEventFile) {
+      return ((ColumnarEventFile) EVENT_SOURCE).forDay(day);
+    }
+    return FREE_BUSY_CACHE.forDay(day);
+  }
+
+  /**
+   * Returns the cache of recent answers to /query, ranked or not.
+   */
+  static QueryCache<Object> getQueryCache() {
+    return QUERY_CACHE;
+  }
+
+  /**
+   * Returns the query that every servlet shares. It is safe to use from many threads at once.
+   */
+  static FindMeetingQuery getFindMeetingQuery() {
+    return FIND_MEETING_QUERY;
+  }
+
+  /**
+   * Returns where queries record their timings and counters, or null if they don't.
+   */
+  static QueryMetrics getQueryMetrics() {
+    return QUERY_METRICS;
+  }
+
+  private static EventSource newEventSource() {
+    String eventSource = System.getProperty(EVENT_SOURCE_PROPERTY);
+    if ("datastore".equals(eventSource)) {
+      return new DatastoreEventSource();
+    }
+    if ("disk".equals(eventSource)) {
+      String directory =
+          System.getProperty(EVENT_LOG_DIRECTORY_PROPERTY, DEFAULT_EVENT_LOG_DIRECTORY);
+      try {
+        return LoggedEventSource.open(
+            Paths.get(directory), Arrays.asList(Events.events), EVENT_LOG_COMPACT_EVERY);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not open the event log in " + directory, e);
+      }
+    }
+    if ("file".equals(eventSource)) {
+      Path file = Paths.get(System.getProperty(EVENT_FILE_PROPERTY, DEFAULT_EVENT_FILE));
+      try {
+        if (!Files.exists(file)) {
+          ColumnarEventFile.write(file, Arrays.asList(Events.events));
+        }
+        return ColumnarEventFile.open(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not map the event file " + file, e);
+      }
+    }
+    return new InMemoryEventSource(Arrays.asList(Events.events));
+  }
+
+  private SharedCalendar() {
+    // Disallow instances.
+  }
+}
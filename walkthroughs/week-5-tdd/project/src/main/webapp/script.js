@@ -92,10 +92,29 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  constructor(duration, attendees, optional_attendees, ranked_slots = 0,
+      min_optional_attendees = 0, working_hours = {},
+      epoch = '1970-01-01T00:00:00Z', slot_granularity = 0, slot_alignment = 0,
+      max_slots = 0, resources = []) {
     this.duration = duration;
     this.attendees = attendees;
     this.optional_attendees = optional_attendees;
+    // Ranked requests can't also have working hours, resources, a slot grid or max slots.
+    this.ranked_slots = ranked_slots;
+    this.min_optional_attendees = min_optional_attendees;
+    // Maps an attendee to {zone, start, end, days}, such as
+    // {zone: 'Europe/Paris', start: '09:00', end: '17:00', days: ['MONDAY']}.
+    this.working_hours = working_hours;
+    // The server answers against its own epoch and ignores this one.
+    this.epoch = epoch;
+    // With a granularity, the server returns meeting-length candidates starting
+    // every slot_granularity minutes, slot_alignment minutes past the grid.
+    this.slot_granularity = slot_granularity;
+    this.slot_alignment = slot_alignment;
+    this.max_slots = max_slots;
+    // Each entry asks for any one resource of a pool that holds enough people,
+    // such as {pool: [{name: 'Room 1', capacity: 8}], min_capacity: 8}.
+    this.resources = resources;
   }
 }
 
@@ -0,0 +1,103 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIdSetTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  @Test
+  public void addAndContains() {
+    AttendeeIdSet set = new AttendeeIdSet();
+    set.add(3);
+    set.add(1000);
+    set.add(3);
+
+    Assert.assertEquals(2, set.size());
+    Assert.assertTrue(set.contains(3));
+    Assert.assertTrue(set.contains(1000));
+    Assert.assertFalse(set.contains(4));
+    Assert.assertFalse(set.contains(100_000));
+  }
+
+  @Test
+  public void clearEmptiesTheSet() {
+    AttendeeIdSet set = new AttendeeIdSet();
+    set.add(3);
+    set.add(70);
+
+    set.clear();
+
+    Assert.assertTrue(set.isEmpty());
+    Assert.assertFalse(set.contains(3));
+    Assert.assertFalse(set.contains(70));
+  }
+
+  @Test
+  public void unknownNamesAreLeftOut() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern(PERSON_A);
+    AttendeeIdSet set = new AttendeeIdSet();
+
+    set.addAll(Arrays.asList(PERSON_A, PERSON_B), dictionary);
+
+    Assert.assertEquals(1, set.size());
+    Assert.assertEquals(-1, dictionary.find(PERSON_B));
+  }
+
+  @Test
+  public void intersectsShortAndLongArrays() {
+    AttendeeIdSet set = new AttendeeIdSet();
+    set.add(5);
+
+    Assert.assertTrue(set.intersectsAny(new int[] {1, 5, 9}));
+    Assert.assertFalse(set.intersectsAny(new int[] {1, 9}));
+    Assert.assertFalse(new AttendeeIdSet().intersectsAny(new int[] {5}));
+
+    int[] everyoneButFive = new int[10_000];
+    for (int i = 0; i < everyoneButFive.length; i++) {
+      everyoneButFive[i] = i < 5 ? i : i + 1;
+    }
+    Assert.assertFalse(set.intersectsAny(everyoneButFive));
+    set.add(10_000);
+    Assert.assertTrue(set.intersectsAny(everyoneButFive));
+  }
+
+  @Test
+  public void allHandsEvent() {
+    List<String> everyone = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      everyone.add("All hands attendee " + i);
+    }
+    Event allHands = new Event("All hands", TimeRange.WHOLE_DAY, everyone);
+    AttendeeIdSet people = new AttendeeIdSet();
+
+    people.addAll(Arrays.asList(PERSON_A), AttendeeDictionary.getDefault());
+    Assert.assertFalse(allHands.hasAnyAttendee(people));
+
+    people.addAll(Arrays.asList("All hands attendee 4321"), AttendeeDictionary.getDefault());
+    Assert.assertTrue(allHands.hasAnyAttendee(people));
+  }
+}
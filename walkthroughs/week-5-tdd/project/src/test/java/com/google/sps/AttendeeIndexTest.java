@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_AB = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+      Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_C = new Event("Event 3",
+      TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), Arrays.asList(PERSON_C));
+
+  @Test
+  public void busyTimesAreSortedByStart() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_A, EVENT_AB));
+
+    List<TimeRange> actual = index.getBusyTimes(PERSON_A);
+    List<TimeRange> expected = Arrays.asList(EVENT_AB.getWhen(), EVENT_A.getWhen());
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_A));
+
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void mergesTouchingRangesAcrossAttendees() {
+    // Events  : |--AB--||-A-|   |-C-|
+    // Merged  : |----------|   |-C-|
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_A, EVENT_AB, EVENT_C));
+
+    List<TimeRange> actual = index.getBusyTimes(Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, 90), EVENT_C.getWhen());
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void addAndRemoveKeepCalendarsUpToDate() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_A));
+    index.addEvent(EVENT_AB);
+    index.removeEvent(EVENT_A);
+
+    Assert.assertEquals(Arrays.asList(EVENT_AB.getWhen()), index.getBusyTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_AB.getWhen()), index.getBusyTimes(PERSON_B));
+
+    index.removeEvent(EVENT_AB);
+
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void queryMatchesEventScan() {
+    Collection<Event> events = Arrays.asList(EVENT_A, EVENT_AB, EVENT_C);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_C);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Collection<TimeRange> actual = query.query(new AttendeeIndex(events), request);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
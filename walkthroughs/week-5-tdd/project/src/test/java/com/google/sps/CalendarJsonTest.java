@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarJsonTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+
+  private final Gson gson = CalendarJson.gson();
+
+  @Test
+  public void timeRangeMatchesScript() {
+    TimeRange range = TimeRange.fromStartDuration(TIME_0800AM, 30);
+
+    Assert.assertEquals("{\"start\":480,\"duration\":30}", gson.toJson(range));
+    Assert.assertEquals(range, gson.fromJson("{\"duration\":30,\"start\":480}", TimeRange.class));
+  }
+
+  @Test
+  public void eventRoundTrip() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 30),
+        Arrays.asList(PERSON_A));
+
+    String json = gson.toJson(event);
+
+    Assert.assertEquals("{\"title\":\"Event 1\",\"when\":{\"start\":480,\"duration\":30},"
+        + "\"attendees\":[\"Person A\"]}", json);
+    Assert.assertEquals(event, gson.fromJson(json, Event.class));
+  }
+
+  @Test
+  public void meetingRequestFromScript() {
+    MeetingRequest request = gson.fromJson("{\"duration\":30,\"attendees\":[\"Person A\"],"
+        + "\"optional_attendees\":[\"Person B\"],\"ranked_slots\":2,\"min_optional_attendees\":1}",
+        MeetingRequest.class);
+
+    Assert.assertEquals(30, request.getDuration());
+    Assert.assertEquals(Arrays.asList(PERSON_A), Arrays.asList(request.getAttendees().toArray()));
+    Assert.assertEquals(
+        Arrays.asList(PERSON_B), Arrays.asList(request.getOptionalAttendees().toArray()));
+    Assert.assertEquals(2, request.getRankedSlots());
+    Assert.assertEquals(1, request.getMinOptionalAttendees());
+  }
+
+  @Test
+  public void missingListsAreEmpty() {
+    MeetingRequest request =
+        gson.fromJson("{\"duration\":60,\"attendees\":null,\"unknown\":[1]}", MeetingRequest.class);
+
+    Assert.assertEquals(60, request.getDuration());
+    Assert.assertEquals(Collections.emptyList(), Arrays.asList(request.getAttendees().toArray()));
+    Assert.assertEquals(
+        Collections.emptyList(), Arrays.asList(request.getOptionalAttendees().toArray()));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void negativeRankedSlotsAreRejected() {
+    gson.fromJson("{\"duration\":60,\"ranked_slots\":-1}", MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rankingWithASlotGridIsRejected() {
+    gson.fromJson("{\"duration\":60,\"ranked_slots\":3,\"slot_granularity\":30}",
+        MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void eventWithoutTitleIsRejected() {
+    gson.fromJson("{\"when\":{\"start\":0,\"duration\":30}}", Event.class);
+  }
+
+  @Test
+  public void workingHoursRoundTrip() {
+    MeetingRequest request = gson.fromJson("{\"duration\":30,\"attendees\":[\"Person A\"],"
+        + "\"working_hours\":{\"Person A\":{\"zone\":\"Europe/Paris\",\"start\":\"09:00\","
+        + "\"end\":\"17:30\"}},\"epoch\":\"2020-01-06T00:00:00Z\"}", MeetingRequest.class);
+
+    WorkingHours expected = WorkingHours.weekdays(ZoneId.of("Europe/Paris"), LocalTime.of(9, 0),
+        LocalTime.of(17, 30));
+    Assert.assertEquals(Collections.singletonMap("Person A", expected),
+        request.getWorkingHours());
+    Assert.assertEquals(Instant.parse("2020-01-06T00:00:00Z"), request.getEpoch());
+
+    MeetingRequest copy = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+    Assert.assertEquals(request.getWorkingHours(), copy.getWorkingHours());
+    Assert.assertEquals(request.getEpoch(), copy.getEpoch());
+  }
+
+  @Test
+  public void resourcesRoundTrip() {
+    MeetingRequest request = gson.fromJson("{\"duration\":30,\"attendees\":[\"Person A\"],"
+        + "\"resources\":[{\"pool\":[{\"name\":\"Room 1\",\"capacity\":8},"
+        + "{\"name\":\"Room 2\",\"capacity\":4}],\"min_capacity\":6}]}",
+        MeetingRequest.class);
+
+    ResourceRequirement expected = new ResourceRequirement(
+        Arrays.asList(new Resource("Room 1", 8), new Resource("Room 2", 4)), 6);
+    Assert.assertEquals(Arrays.asList(expected), request.getResourceRequirements());
+
+    MeetingRequest copy = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+    Assert.assertEquals(request.getResourceRequirements(), copy.getResourceRequirements());
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void unknownZoneIsRejected() {
+    gson.fromJson("{\"duration\":30,\"working_hours\":{\"Person A\":{\"zone\":\"Mars/Base\","
+        + "\"start\":\"09:00\",\"end\":\"17:00\"}}}", MeetingRequest.class);
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ColumnarEventFileTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Persön C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_AB = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_OVERNIGHT = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_1100PM, DAY + 60, false), Arrays.asList(PERSON_C));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void eventsRoundTripInStartOrder() throws IOException {
+    ColumnarEventFile file = writeAndOpen(Arrays.asList(EVENT_OVERNIGHT, EVENT_A, EVENT_AB));
+
+    Assert.assertEquals(3, file.size());
+    Assert.assertEquals(Arrays.asList(EVENT_AB, EVENT_A, EVENT_OVERNIGHT), file.getAllEvents());
+    Assert.assertEquals(EVENT_AB.getAttendees(),
+        new ArrayList<>(file.getAllEvents()).get(0).getAttendees());
+  }
+
+  @Test
+  public void getEventsReadsOnlyTheWindow() throws IOException {
+    ColumnarEventFile file = writeAndOpen(Arrays.asList(EVENT_OVERNIGHT, EVENT_A, EVENT_AB));
+
+    // An event shared by both attendees is returned once.
+    Assert.assertEquals(Arrays.asList(EVENT_AB, EVENT_A), file.getEvents(
+        Arrays.asList(PERSON_A, PERSON_B), LongTimeRange.wholeDay(0)));
+    Assert.assertEquals(Arrays.asList(EVENT_OVERNIGHT), file.getEvents(
+        Arrays.asList(PERSON_C), LongTimeRange.wholeDay(1)));
+    Assert.assertEquals(Collections.emptyList(), file.getEvents(
+        Arrays.asList(PERSON_A, "Nobody"), LongTimeRange.wholeDay(1)));
+  }
+
+  @Test
+  public void busyTimesAreClippedToTheDay() throws IOException {
+    ColumnarEventFile file = writeAndOpen(Arrays.asList(EVENT_OVERNIGHT, EVENT_A, EVENT_AB));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100PM, DAY, false)),
+        file.forDay(0).getBusyTimes(Arrays.asList(PERSON_A, PERSON_C)));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(0, 60)),
+        file.forDay(1).getBusyTimes(Arrays.asList(PERSON_A, PERSON_C)));
+  }
+
+  @Test
+  public void queryMatchesTheEvents() throws IOException {
+    Random random = new Random(3);
+    List<Event> events = new ArrayList<>();
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      people.add("Person " + i);
+    }
+    for (int i = 0; i < 300; i++) {
+      Collections.shuffle(people, random);
+      events.add(new Event("Event " + (i % 7),
+          TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(60)),
+          new ArrayList<>(people.subList(0, 1 + random.nextInt(3)))));
+    }
+    ColumnarEventFile file = writeAndOpen(events);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    for (int i = 0; i < 20; i++) {
+      Collections.shuffle(people, random);
+      MeetingRequest request = new MeetingRequest(people.subList(0, 3), 30);
+      for (String person : people.subList(3, 6)) {
+        request.addOptionalAttendee(person);
+      }
+      Assert.assertEquals(query.query(events, request), query.query(file.forDay(0), request));
+    }
+    Assert.assertEquals(new HashSet<>(events), new HashSet<>(file.getAllEvents()));
+  }
+
+  @Test
+  public void fileIsReadOnly() throws IOException {
+    ColumnarEventFile file = writeAndOpen(Arrays.asList(EVENT_A));
+
+    Assert.assertTrue(file.isReadOnly());
+    Assert.assertFalse(new InMemoryEventSource().isReadOnly());
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedFileIsRejected() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.bin");
+    ColumnarEventFile.write(path, Arrays.asList(EVENT_A, EVENT_AB));
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+    ColumnarEventFile.open(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void offsetsOutOfOrderAreRejected() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.bin");
+    ColumnarEventFile.write(path, Arrays.asList(EVENT_A, EVENT_AB));
+    byte[] bytes = Files.readAllBytes(path);
+    // The second of the three attendee offsets, after the header and three columns of two events.
+    ByteBuffer.wrap(bytes).putInt((8 + 3 * 2 + 1) * Integer.BYTES, 100);
+    Files.write(path, bytes);
+
+    ColumnarEventFile.open(path);
+  }
+
+  private ColumnarEventFile writeAndOpen(List<Event> events) throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.bin");
+    ColumnarEventFile.write(path, events);
+    return ColumnarEventFile.open(path);
+  }
+}
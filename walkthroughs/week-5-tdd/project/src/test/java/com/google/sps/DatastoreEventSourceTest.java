@@ -0,0 +1,192 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DatastoreEventSourceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  private final LocalServiceTestHelper helper =
+      new LocalServiceTestHelper(new LocalDatastoreServiceTestConfig());
+
+  private DatastoreEventSource source;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    // A small page forces lookups to follow cursors.
+    source = new DatastoreEventSource(DatastoreServiceFactory.getDatastoreService(), 2);
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void onlyRequestedAttendeesAreReturned() {
+    source.addEvent(new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A)));
+    source.addEvent(new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_B)));
+
+    Collection<Event> actual = source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDay(0));
+
+    Assert.assertEquals(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A))),
+        new ArrayList<>(actual));
+  }
+
+  @Test
+  public void onlyEventsInWindowAreReturned() {
+    Event yesterday = new Event("Yesterday",
+        TimeRange.fromStartEnd(TIME_0800AM - DAY, TIME_0900AM - DAY, false),
+        Arrays.asList(PERSON_A));
+    Event pastMidnight = new Event("Past midnight",
+        TimeRange.fromStartEnd(-60, 60, false), Arrays.asList(PERSON_A));
+    Event today = new Event("Today",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+    Event tomorrow = new Event("Tomorrow",
+        TimeRange.fromStartEnd(DAY, DAY + 60, false), Arrays.asList(PERSON_A));
+    for (Event event : Arrays.asList(yesterday, pastMidnight, today, tomorrow)) {
+      source.addEvent(event);
+    }
+
+    Collection<Event> actual = source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDay(0));
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(pastMidnight, today)), new HashSet<>(actual));
+  }
+
+  @Test
+  public void multiDayWindowReturnsEachEventOnce() {
+    Event overnight = new Event("Overnight",
+        TimeRange.fromStartEnd(DAY - 60, DAY + 60, false), Arrays.asList(PERSON_A));
+    Event dayAfter = new Event("Day after",
+        TimeRange.fromStartEnd(2 * DAY + TIME_0800AM, 2 * DAY + TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    Event later = new Event("Later",
+        TimeRange.fromStartEnd(3 * DAY + TIME_0800AM, 3 * DAY + TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    for (Event event : Arrays.asList(overnight, dayAfter, later)) {
+      source.addEvent(event);
+    }
+
+    Collection<Event> actual =
+        source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDays(0, 3));
+
+    Assert.assertEquals(Arrays.asList(overnight, dayAfter), new ArrayList<>(actual));
+  }
+
+  @Test
+  public void pagesThroughManyEvents() {
+    List<Event> expected = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      Event event = new Event("Event " + i, TimeRange.fromStartDuration(i * 60, 30),
+          Arrays.asList(PERSON_A));
+      source.addEvent(event);
+      expected.add(event);
+    }
+
+    Collection<Event> actual = source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDay(0));
+
+    Assert.assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+  }
+
+  @Test
+  public void sharedEventIsReturnedOnce() {
+    source.addEvent(new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A, PERSON_B, PERSON_C)));
+
+    Collection<Event> actual =
+        source.getEvents(Arrays.asList(PERSON_A, PERSON_B), LongTimeRange.wholeDay(0));
+
+    // Only the attendees asked about are listed.
+    Assert.assertEquals(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A, PERSON_B))), new ArrayList<>(actual));
+  }
+
+  @Test
+  public void removeEvent() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    source.addEvent(event);
+
+    source.removeEvent(event);
+
+    Assert.assertEquals(Collections.emptyList(),
+        new ArrayList<>(source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDay(0))));
+  }
+
+  @Test
+  public void queryOverDatastoreMatchesInMemory() {
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B, PERSON_C)));
+    for (Event event : events) {
+      source.addEvent(event);
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Collection<TimeRange> expected = query.query(events, request);
+    Collection<TimeRange> actual = query.query(
+        source.getEvents(request.getAttendees(), LongTimeRange.wholeDay(0)), request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void allEventsAndVersion() {
+    long initial = source.getVersion();
+    List<Event> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Event event = new Event("Event " + i, TimeRange.fromStartDuration(i * 60, 30),
+          Arrays.asList(PERSON_A, PERSON_B));
+      source.addEvent(event);
+      expected.add(event);
+    }
+
+    Assert.assertEquals(new HashSet<>(expected), new HashSet<>(source.getAllEvents()));
+    Assert.assertNotEquals(initial, source.getVersion());
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DayOccupancyTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  @Test
+  public void emptyDayIsOneFreeRange() {
+    List<TimeRange> actual = new DayOccupancy().getFreeTimes(30);
+    List<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void busyRangeSplitsDay() {
+    DayOccupancy occupancy =
+        DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false)));
+
+    List<TimeRange> actual = occupancy.getFreeTimes(30);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void markFreeUndoesMarkBusy() {
+    DayOccupancy occupancy =
+        DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)));
+    TimeRange meeting = TimeRange.fromStartEnd(60, 200, false);
+
+    occupancy.markBusy(meeting);
+    Assert.assertFalse(occupancy.isFree(TimeRange.fromStartEnd(190, 260, false)));
+    occupancy.markFree(meeting);
+
+    Assert.assertTrue(occupancy.isFree(TimeRange.fromStartEnd(TimeRange.START_OF_DAY,
+        TIME_0800AM, false)));
+    Assert.assertFalse(occupancy.isFree(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM,
+        false)));
+  }
+
+  @Test
+  public void rangesOnWordBoundaries() {
+    // Minute 64 starts the second word and 1439 is the last minute of the day.
+    DayOccupancy occupancy = DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(64, 128, false),
+        TimeRange.fromStartEnd(TimeRange.END_OF_DAY, TimeRange.END_OF_DAY, true)));
+
+    Assert.assertFalse(occupancy.isBusy(63));
+    Assert.assertTrue(occupancy.isBusy(64));
+    Assert.assertTrue(occupancy.isBusy(127));
+    Assert.assertFalse(occupancy.isBusy(128));
+    Assert.assertTrue(occupancy.isBusy(TimeRange.END_OF_DAY));
+
+    List<TimeRange> actual = occupancy.getFreeTimes(1);
+    List<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 64, false),
+        TimeRange.fromStartEnd(128, TimeRange.END_OF_DAY, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void orCombinesBusyMinutes() {
+    DayOccupancy occupancy =
+        DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false)));
+    occupancy.or(
+        DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false))));
+
+    DayOccupancy expected =
+        DayOccupancy.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)));
+
+    Assert.assertEquals(expected, occupancy);
+  }
+
+  @Test
+  public void shortGapsAreSkipped() {
+    DayOccupancy occupancy = DayOccupancy.of(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true)));
+
+    Assert.assertEquals(Arrays.asList(), occupancy.getFreeTimes(60));
+  }
+
+  @Test
+  public void queryMatchesEventScan() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 30), Arrays.asList("A")),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, 30), Arrays.asList("B")),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, 30), Arrays.asList("C")));
+    MeetingRequest request = new MeetingRequest(Arrays.asList("A", "B"), 30);
+    request.addOptionalAttendee("C");
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Collection<TimeRange> actual = query.query(DayOccupancy.byAttendee(events), request);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventSnapshotTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_3 = new Event("Event 3",
+      TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+
+  @Test
+  public void eventsAreSortedByStart() {
+    EventSnapshot snapshot = EventSnapshot.of(Arrays.asList(EVENT_3, EVENT_1, EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2, EVENT_3), snapshot.getEvents());
+  }
+
+  @Test
+  public void withInsertsInOrderAndLeavesTheOriginal() {
+    EventSnapshot original = EventSnapshot.of(Arrays.asList(EVENT_1, EVENT_3));
+
+    EventSnapshot changed = original.with(EVENT_2);
+
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2, EVENT_3), changed.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_3), original.getEvents());
+  }
+
+  @Test
+  public void eventsStartingTogetherKeepTheirOrder() {
+    Event sameStart = new Event("Event 4", EVENT_2.getWhen(), Arrays.asList(PERSON_A));
+
+    EventSnapshot snapshot = EventSnapshot.empty().with(EVENT_2).with(sameStart).with(EVENT_1);
+
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2, sameStart), snapshot.getEvents());
+  }
+
+  @Test
+  public void withoutRemovesOneEqualEvent() {
+    EventSnapshot original = EventSnapshot.of(Arrays.asList(EVENT_1, EVENT_2, EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), original.without(EVENT_2).getEvents());
+    Assert.assertSame(original, original.without(EVENT_3));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void eventsCannotBeModified() {
+    EventSnapshot.of(Arrays.asList(EVENT_1)).getEvents().add(EVENT_2);
+  }
+}
@@ -14,11 +14,19 @@
 
 package com.google.sps;
 
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +51,13 @@ public final class FindMeetingQueryTest {
   private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
   private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
   private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  // Midnight UTC on a Monday, and office hours.
+  private static final Instant MONDAY = Instant.parse("2020-01-06T00:00:00Z");
+  private static final LocalTime NINE = LocalTime.of(9, 0);
+  private static final LocalTime FIVE = LocalTime.of(17, 0);
 
   private static final int DURATION_30_MINUTES = 30;
   private static final int DURATION_60_MINUTES = 60;
@@ -318,5 +333,530 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void multiDayWindowMatchesSingleDayQueries() {
+    // Day 0 and day 2 have an event for A, day 1 is empty.
+    //
+    // Events  :       |--A--|                               |--A--|
+    // Days    : |---------------||---------------||---------------|
+    // Options : |--1--|     |-2-||-------3-------||-----4---|     |5|
+
+    int dayTwo = 2 * LongTimeRange.MINUTES_PER_DAY;
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(dayTwo + TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<LongTimeRange> actual = query.query(events, request, LongTimeRange.wholeDays(0, 3));
+    Collection<LongTimeRange> expected = Arrays.asList(
+        LongTimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM),
+        LongTimeRange.fromStartEnd(TIME_0830AM, LongTimeRange.MINUTES_PER_DAY),
+        LongTimeRange.wholeDay(1),
+        LongTimeRange.fromStartEnd(dayTwo, dayTwo + TIME_0900AM),
+        LongTimeRange.fromStartEnd(dayTwo + TIME_0930AM, dayTwo + LongTimeRange.MINUTES_PER_DAY));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void eventPastMidnightBlocksNextDay() {
+    // A's event starts late on day 0 and ends at 08:30 on day 1. The window starts mid-way
+    // through day 0.
+    int eventStart = TimeRange.getTimeInMinutes(23, 0);
+    int eventEnd = LongTimeRange.MINUTES_PER_DAY + TIME_0830AM;
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(eventStart, eventEnd, false), Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    LongTimeRange window =
+        LongTimeRange.fromStartEnd(TIME_1100AM, 2 * LongTimeRange.MINUTES_PER_DAY);
+
+    Collection<LongTimeRange> actual = query.query(events, request, window);
+    Collection<LongTimeRange> expected = Arrays.asList(
+        LongTimeRange.fromStartEnd(TIME_1100AM, eventStart),
+        LongTimeRange.fromStartEnd(eventEnd, 2 * LongTimeRange.MINUTES_PER_DAY));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void parallelMergeMatchesSequential() {
+    // Hundreds of people, each with a few random meetings.
+    Random random = new Random(1);
+    List<Event> events = new ArrayList<>();
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      String person = "Person " + i;
+      people.add(person);
+      for (int j = 0; j < 3; j++) {
+        events.add(new Event("Event " + i + "-" + j,
+            TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(40)),
+            Arrays.asList(person)));
+      }
+    }
+    AttendeeIndex index = new AttendeeIndex(events);
+    MeetingRequest request = new MeetingRequest(people.subList(0, 100), DURATION_30_MINUTES);
+    for (String person : people.subList(100, 400)) {
+      request.addOptionalAttendee(person);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Collection<TimeRange> parallel = new FindMeetingQuery(pool, 0).query(index, request);
+      Collection<TimeRange> sequential =
+          new FindMeetingQuery(pool, Integer.MAX_VALUE).query(index, request);
+
+      Assert.assertEquals(sequential, parallel);
+      Assert.assertEquals(query.query(events, request), parallel);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void onlyALargeGroupMergesInParallel() {
+    Random random = new Random(4);
+    List<Event> events = new ArrayList<>();
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      String person = "Person " + i;
+      people.add(person);
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(40)),
+          Arrays.asList(person)));
+    }
+    AttendeeIndex index = new AttendeeIndex(events);
+    MeetingRequest request = new MeetingRequest(people.subList(0, 1), DURATION_30_MINUTES);
+    for (String person : people.subList(1, 300)) {
+      request.addOptionalAttendee(person);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      // Neither group alone reaches 300, so nothing runs on the pool.
+      QueryMetrics metrics = new QueryMetrics();
+      Collection<TimeRange> sequential =
+          new FindMeetingQuery(pool, 300, metrics).query(index, request);
+      Assert.assertEquals(0, metrics.getHistogram(QueryMetrics.Phase.PARALLEL_MERGE).getCount());
+
+      // Only the optional group does here; the single mandatory attendee is merged in place.
+      Collection<TimeRange> parallel =
+          new FindMeetingQuery(pool, 200, metrics).query(index, request);
+      Assert.assertEquals(1, metrics.getHistogram(QueryMetrics.Phase.PARALLEL_MERGE).getCount());
+      Assert.assertEquals(sequential, parallel);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void recurringEventsMatchExpandedEvents() {
+    // A few people with one-off meetings and daily or weekly series over several weeks.
+    Random random = new Random(2);
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, PERSON_C, "Person D", "Person E");
+    List<Event> events = new ArrayList<>();
+    List<RecurringEvent> series = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      Event event = new Event("Event " + i, TimeRange.fromStartDuration(
+          random.nextInt(30 * LongTimeRange.MINUTES_PER_DAY), 15 + random.nextInt(120)),
+          Arrays.asList(people.get(random.nextInt(people.size()))));
+      if (i % 2 == 0) {
+        events.add(event);
+      } else {
+        Recurrence recurrence = i % 4 == 1
+            ? Recurrence.daily(1 + random.nextInt(3))
+            : Recurrence.weekly(1 + random.nextInt(2), DayOfWeek.WEDNESDAY,
+                EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.of(1 + random.nextInt(7))));
+        series.add(new RecurringEvent(event, recurrence.withCount(5 + random.nextInt(20))));
+      }
+    }
+    LongTimeRange window = LongTimeRange.fromStartEnd(
+        10 * LongTimeRange.MINUTES_PER_DAY + TIME_0930AM, 40 * LongTimeRange.MINUTES_PER_DAY);
+
+    List<Event> expanded = new ArrayList<>(events);
+    for (RecurringEvent recurring : series) {
+      expanded.addAll(recurring.expand(LongTimeRange.wholeDays(0, 100)));
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B),
+        DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Assert.assertEquals(query.query(expanded, request, window),
+        query.query(events, series, request, window));
+  }
+
+  @Test
+  public void workingHoursLimitMandatoryAttendees() {
+    // Person A works 9 to 5 and has a meeting from 10 to 11.
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setEpoch(MONDAY);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void optionalAttendeeInAnotherZone() {
+    // Person B works 9 to 5 in New York, which is 2pm to 10pm UTC in January.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setEpoch(MONDAY);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE));
+    request.setWorkingHours(PERSON_B,
+        WorkingHours.weekdays(ZoneId.of("America/New_York"), NINE, FIVE));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0200PM, TIME_0500PM, false));
+    assertAllDayQueries(expected, NO_EVENTS, request);
+  }
+
+  @Test
+  public void optionalAttendeeNeverWorkingIsIgnored() {
+    // Person B works 9 to 5 in Tokyo, which is midnight to 8am UTC.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setEpoch(MONDAY);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE));
+    request.setWorkingHours(PERSON_B, WorkingHours.weekdays(ZoneId.of("Asia/Tokyo"), NINE, FIVE));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+    assertAllDayQueries(expected, NO_EVENTS, request);
+  }
+
+  @Test
+  public void workingHoursOverAWeek() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setEpoch(MONDAY);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE));
+
+    List<LongTimeRange> expected = new ArrayList<>();
+    for (int day = 0; day < 5; day++) {
+      expected.add(
+          LongTimeRange.onDay(day, TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false)));
+    }
+    Assert.assertEquals(expected,
+        query.query(NO_EVENTS, request, LongTimeRange.wholeDays(0, 7)));
+  }
+
+  @Test
+  public void workingHoursFollowTheQueriedDay() {
+    // Person A works 9 to 5 on weekdays and has a meeting from 10 to 11 on Tuesday, day 1.
+    int tuesday = LongTimeRange.MINUTES_PER_DAY;
+    Event meeting = new Event("Event 1",
+        TimeRange.fromStartEnd(tuesday + TIME_1000AM, tuesday + TIME_1100AM, false),
+        Arrays.asList(PERSON_A));
+    FreeBusyCache cache =
+        new FreeBusyCache(new InMemoryEventSource(Arrays.asList(meeting)), 100);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setEpoch(MONDAY);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false));
+    Assert.assertEquals(expected, query.query(cache.forDay(1), request, 1));
+    // Saturday, day 5, is not a working day.
+    Assert.assertEquals(Collections.emptyList(), query.query(cache.forDay(5), request, 5));
+    Assert.assertEquals(Collections.emptyList(),
+        query.query(Collections.<String, DayOccupancy>emptyMap(), request, 5));
+  }
+
+  @Test
+  public void alignedCandidates() {
+    // Person A is free from 8:10 to 9:00 and from 9:30 to 10:10, split on the half hour.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM + 10,
+            false), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM + 10, TimeRange.END_OF_DAY,
+            true), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setSlotGrid(30, 0);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void alignedCandidatesOverlapWhenTheGridIsFinerThanTheMeeting() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    // Quarter past and quarter to.
+    request.setSlotGrid(30, 15);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM + 15, DURATION_60_MINUTES),
+            TimeRange.fromStartDuration(TIME_0900AM + 45, DURATION_60_MINUTES));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void maxSlotsKeepsTheEarliest() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setMaxSlots(2);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    assertAllDayQueries(expected, events, request);
+
+    request.setSlotGrid(60, 0);
+    expected = Arrays.asList(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, 30),
+        TimeRange.fromStartDuration(60, 30));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void maxSlotsStopsTheSweepEarly() {
+    // Each day is free from 9 to 10 only; the limit is met on day 1.
+    List<Event> events = new ArrayList<>();
+    for (int day = 0; day < 30; day++) {
+      int dayStart = day * LongTimeRange.MINUTES_PER_DAY;
+      int previousTen = dayStart - LongTimeRange.MINUTES_PER_DAY + TIME_1000AM;
+      events.add(new Event("Night " + day,
+          TimeRange.fromStartEnd(previousTen, dayStart + TIME_0900AM, false),
+          Arrays.asList(PERSON_A)));
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setSlotGrid(30, 0);
+    request.setMaxSlots(3);
+
+    List<LongTimeRange> expected = Arrays.asList(
+        LongTimeRange.onDay(0, TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES)),
+        LongTimeRange.onDay(0, TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES)),
+        LongTimeRange.onDay(1, TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES)));
+    Assert.assertEquals(expected,
+        query.query(events, request, LongTimeRange.wholeDays(0, 30)));
+  }
+
+  @Test
+  public void roomsAreNotSwitchedDuringAMeeting() {
+    // At every minute one of the rooms is free, but an hour from 9:30 needs Room 1 until 10 and
+    // Room 2 from 10.
+    Resource room1 = new Resource("Room 1", 8);
+    Resource room2 = new Resource("Room 2", 8);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, room1.getName())),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(room2.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_HOUR);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room1, room2), 8));
+
+    // Meetings may start up to 9:00 in Room 2 and from 10:00 in Room 1.
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void roomsThatAreTooSmallDoNotQualify() {
+    Resource small = new Resource("Small", 4);
+    Resource large = new Resource("Large", 10);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(large.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(small, large), 8));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void everyRequirementNeedsAResource() {
+    Resource room = new Resource("Room", 8);
+    Resource projector = new Resource("Projector", 0);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(room.getName())),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(projector.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room), 8));
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(projector), 0));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void sharedPoolsNeedAResourceEach() {
+    // Two rooms out of the same two, while one of them is booked from 9 to 10.
+    Resource room1 = new Resource("Room 1", 8);
+    Resource room2 = new Resource("Room 2", 8);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(room2.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room1, room2), 8));
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room1, room2), 8));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void optionalAttendeesAreDroppedBeforeTheRoom() {
+    // The only time the optional attendee is free, the room is booked.
+    Resource room = new Resource("Room", 8);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(room.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room), 8));
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+    assertAllDayQueries(expected, events, request);
+  }
+
+  @Test
+  public void recurringRoomBookingsAreExpanded() {
+    // Nobody asked for attends the daily booking of the room from 9 to 10.
+    Resource room = new Resource("Room", 8);
+    RecurringEvent standup = new RecurringEvent(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(room.getName())),
+        Recurrence.daily(1));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room), 8));
+
+    LongTimeRange window = LongTimeRange.wholeDays(0, 2);
+    List<LongTimeRange> actual =
+        query.query(NO_EVENTS, Arrays.asList(standup), request, window);
+
+    Assert.assertEquals(query.query(standup.expand(window), request, window), actual);
+    Assert.assertNotEquals(query.query(NO_EVENTS, request, window), actual);
+  }
+
+  @Test
+  public void roomBookingsCarryOverMidnight() {
+    Resource room = new Resource("Room", 8);
+    int elevenPm = TimeRange.getTimeInMinutes(23, 0);
+    int oneAm = LongTimeRange.MINUTES_PER_DAY + TimeRange.getTimeInMinutes(1, 0);
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(elevenPm, oneAm, false),
+            Arrays.asList(room.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room), 8));
+
+    List<LongTimeRange> expected = Arrays.asList(
+        LongTimeRange.fromStartEnd(0, elevenPm),
+        LongTimeRange.fromStartEnd(oneAm, 2 * LongTimeRange.MINUTES_PER_DAY));
+    Assert.assertEquals(expected, query.query(events, request, LongTimeRange.wholeDays(0, 2)));
+  }
+
+  @Test
+  public void metricsCountTheWorkOfEachQuery() {
+    QueryMetrics metrics = new QueryMetrics();
+    FindMeetingQuery timed = new FindMeetingQuery(metrics);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_1100AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> slots = timed.query(events, request);
+
+    Assert.assertEquals(1, metrics.getHistogram(QueryMetrics.Phase.SORT).getCount());
+    Assert.assertEquals(1, metrics.getHistogram(QueryMetrics.Phase.SWEEP).getCount());
+    Assert.assertEquals(1,
+        metrics.getHistogram(QueryMetrics.Phase.MIXED_INTERSECTION).getCount());
+    Assert.assertEquals(3, metrics.getCount(QueryMetrics.Counter.EVENTS_SCANNED));
+    Assert.assertEquals(2, metrics.getCount(QueryMetrics.Counter.EVENTS_MATCHED));
+    Assert.assertEquals(slots.size(), metrics.getCount(QueryMetrics.Counter.SLOTS_EMITTED));
+
+    timed.query(new AttendeeIndex(events), request);
+
+    Assert.assertEquals(1, metrics.getHistogram(QueryMetrics.Phase.MANDATORY_MERGE).getCount());
+    Assert.assertEquals(1, metrics.getHistogram(QueryMetrics.Phase.OPTIONAL_MERGE).getCount());
+    Assert.assertEquals(2,
+        metrics.getHistogram(QueryMetrics.Phase.MIXED_INTERSECTION).getCount());
+    Assert.assertEquals(2 * slots.size(),
+        metrics.getCount(QueryMetrics.Counter.SLOTS_EMITTED));
+  }
+
+  @Test
+  public void snapshotAnswersLikeTheEvents() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    EventSnapshot snapshot = EventSnapshot.of(events);
+
+    Assert.assertEquals(query.query(events, request), query.query(snapshot, request));
+    Assert.assertEquals(query.query(events, request, LongTimeRange.wholeDays(0, 2)),
+        query.query(snapshot, request, LongTimeRange.wholeDays(0, 2)));
+  }
+
+  @Test
+  public void onlySweptEventsGrowTheDictionary() {
+    // Names no other test uses, so the shared dictionary can't have seen them.
+    String newcomer = "Newcomer of onlySweptEventsGrowTheDictionary";
+    String stranger = "Stranger of onlySweptEventsGrowTheDictionary";
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(newcomer));
+    Assert.assertEquals(-1, AttendeeDictionary.getDefault().find(newcomer));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(newcomer, stranger), DURATION_30_MINUTES);
+    Collection<TimeRange> actual = query.querySorted(Arrays.asList(event), request);
+
+    // The event is interned before the request's names are looked up, so it still counts.
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM,
+        false), TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true)), actual);
+    Assert.assertNotEquals(-1, AttendeeDictionary.getDefault().find(newcomer));
+    Assert.assertEquals(-1, AttendeeDictionary.getDefault().find(stranger));
+  }
+
+  /** Checks that the event sweep, the index and the bitmaps all answer {@code expected}. */
+  private void assertAllDayQueries(Collection<TimeRange> expected, Collection<Event> events,
+      MeetingRequest request) {
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(new AttendeeIndex(events), request));
+    Assert.assertEquals(expected, query.query(DayOccupancy.byAttendee(events), request));
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class FreeBusyCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_2300PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_B));
+
+  private FreeBusyCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new FreeBusyCache(new InMemoryEventSource(Arrays.asList(EVENT_A, EVENT_B)), 100);
+  }
+
+  @Test
+  public void repeatedLookupsHitTheCache() {
+    cache.getBusyTimes(PERSON_A, 0);
+    cache.getBusyTimes(PERSON_A, 0);
+    cache.getBusyTimes(PERSON_A, 0);
+
+    Assert.assertEquals(1, cache.getStats().loadCount());
+    Assert.assertEquals(2, cache.getStats().hitCount());
+  }
+
+  @Test
+  public void changeOnlyDropsAffectedAttendees() {
+    cache.getBusyTimes(PERSON_A, 0);
+    cache.getBusyTimes(PERSON_B, 0);
+
+    Event moved = new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, 600, false),
+        Arrays.asList(PERSON_A));
+    cache.updateEvent(EVENT_A, moved);
+
+    Assert.assertEquals(Arrays.asList(moved.getWhen()), cache.getBusyTimes(PERSON_A, 0));
+    Assert.assertEquals(Arrays.asList(EVENT_B.getWhen()), cache.getBusyTimes(PERSON_B, 0));
+    // Only A had to be rebuilt.
+    Assert.assertEquals(3, cache.getStats().loadCount());
+  }
+
+  @Test
+  public void addAndRemoveAreSeen() {
+    Assert.assertEquals(Arrays.asList(EVENT_A.getWhen()), cache.getBusyTimes(PERSON_A, 0));
+
+    cache.removeEvent(EVENT_A);
+    Assert.assertEquals(Collections.emptyList(), cache.getBusyTimes(PERSON_A, 0));
+
+    cache.addEvent(EVENT_A);
+    Assert.assertEquals(Arrays.asList(EVENT_A.getWhen()), cache.getBusyTimes(PERSON_A, 0));
+  }
+
+  @Test
+  public void eventsAreClippedToEachDay() {
+    // A late meeting that runs into the next morning.
+    Event overnight = new Event("Event 3",
+        TimeRange.fromStartEnd(TIME_2300PM, DAY + TIME_0800AM, false), Arrays.asList(PERSON_B));
+    cache.addEvent(overnight);
+
+    List<TimeRange> dayZero = cache.getBusyTimes(PERSON_B, 0);
+    List<TimeRange> dayOne = cache.getBusyTimes(PERSON_B, 1);
+
+    Assert.assertEquals(Arrays.asList(EVENT_B.getWhen(),
+        TimeRange.fromStartEnd(TIME_2300PM, DAY, false)), dayZero);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(DAY, DAY + TIME_0800AM, false)),
+        dayOne);
+  }
+
+  @Test
+  public void queryThroughCacheMatchesIndex() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_A, EVENT_B));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(PERSON_B);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Assert.assertEquals(query.query(index, request), query.query(cache.forDay(0), request));
+  }
+}
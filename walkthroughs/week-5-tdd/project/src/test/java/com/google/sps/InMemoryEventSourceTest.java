@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class InMemoryEventSourceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_AB = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_TOMORROW = new Event("Event 3",
+      TimeRange.fromStartEnd(DAY + TIME_0800AM, DAY + TIME_0900AM, false),
+      Arrays.asList(PERSON_B));
+
+  @Test
+  public void onlyRequestedAttendeesAndWindowAreReturned() {
+    InMemoryEventSource source =
+        new InMemoryEventSource(Arrays.asList(EVENT_A, EVENT_AB, EVENT_TOMORROW));
+
+    Assert.assertEquals(Arrays.asList(EVENT_AB), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_B), LongTimeRange.wholeDay(0))));
+    Assert.assertEquals(Arrays.asList(EVENT_TOMORROW), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_B), LongTimeRange.wholeDay(1))));
+  }
+
+  @Test
+  public void sharedEventIsReturnedOnce() {
+    InMemoryEventSource source = new InMemoryEventSource(Arrays.asList(EVENT_A, EVENT_AB));
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(EVENT_A, EVENT_AB)), new HashSet<>(
+        source.getEvents(Arrays.asList(PERSON_A, PERSON_B), LongTimeRange.wholeDay(0))));
+    Assert.assertEquals(2,
+        source.getEvents(Arrays.asList(PERSON_A, PERSON_B), LongTimeRange.wholeDay(0)).size());
+  }
+
+  @Test
+  public void changesSwapInANewSnapshot() {
+    InMemoryEventSource source = new InMemoryEventSource(Arrays.asList(EVENT_TOMORROW));
+    EventSnapshot before = source.getSnapshot();
+
+    source.addEvent(EVENT_A);
+
+    Assert.assertEquals(Arrays.asList(EVENT_TOMORROW), before.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_TOMORROW), source.getSnapshot().getEvents());
+    source.removeEvent(EVENT_TOMORROW);
+    Assert.assertEquals(Arrays.asList(EVENT_A), source.getSnapshot().getEvents());
+  }
+
+  @Test
+  public void addAndRemoveEvent() {
+    InMemoryEventSource source = new InMemoryEventSource();
+
+    source.addEvent(EVENT_AB);
+    Assert.assertEquals(Arrays.asList(EVENT_AB), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_B), LongTimeRange.wholeDay(0))));
+
+    source.removeEvent(EVENT_AB);
+    Assert.assertEquals(Collections.emptyList(), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_A, PERSON_B), LongTimeRange.wholeDay(0))));
+  }
+
+  @Test
+  public void allEventsIncludeEventsWithoutAttendees() {
+    Event nobody = new Event("Event 4", TimeRange.WHOLE_DAY, Collections.emptyList());
+    InMemoryEventSource source = new InMemoryEventSource(Arrays.asList(EVENT_A, nobody));
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(EVENT_A, nobody)),
+        new HashSet<>(source.getAllEvents()));
+  }
+
+  @Test
+  public void versionChangesWithEvents() {
+    InMemoryEventSource source = new InMemoryEventSource(Arrays.asList(EVENT_A));
+    long initial = source.getVersion();
+
+    source.removeEvent(EVENT_AB);
+    Assert.assertEquals(initial, source.getVersion());
+
+    source.addEvent(EVENT_AB);
+    long added = source.getVersion();
+    Assert.assertNotEquals(initial, added);
+
+    source.removeEvent(EVENT_AB);
+    Assert.assertNotEquals(added, source.getVersion());
+    Assert.assertEquals(Arrays.asList(EVENT_A), new ArrayList<>(source.getAllEvents()));
+  }
+
+  @Test
+  public void updateIsOneChange() {
+    InMemoryEventSource source = new InMemoryEventSource(Arrays.asList(EVENT_A, EVENT_TOMORROW));
+    long before = source.getVersion();
+
+    source.updateEvent(EVENT_A, EVENT_AB);
+
+    Assert.assertEquals(before + 1, source.getVersion());
+    Assert.assertEquals(Arrays.asList(EVENT_AB, EVENT_TOMORROW), source.getSnapshot().getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_AB), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_A), LongTimeRange.wholeDay(0))));
+    Assert.assertEquals(Arrays.asList(EVENT_AB), new ArrayList<>(
+        source.getEvents(Arrays.asList(PERSON_B), LongTimeRange.wholeDay(0))));
+  }
+}
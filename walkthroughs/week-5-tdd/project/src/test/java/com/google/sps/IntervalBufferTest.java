@@ -0,0 +1,115 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalBufferTest {
+  private static IntervalBuffer of(int... bounds) {
+    IntervalBuffer buffer = new IntervalBuffer(1);
+    for (int i = 0; i < bounds.length; i += 2) {
+      buffer.add(bounds[i], bounds[i + 1]);
+    }
+    return buffer;
+  }
+
+  private static void assertIntervals(IntervalBuffer actual, int... expected) {
+    Assert.assertEquals(of(expected).toTimeRanges(), actual.toTimeRanges());
+  }
+
+  @Test
+  public void addGrowsAndClearKeepsNothing() {
+    IntervalBuffer buffer = of(0, 10, 20, 30, 40, 50);
+
+    Assert.assertEquals(3, buffer.size());
+    Assert.assertEquals(20, buffer.start(1));
+    Assert.assertEquals(30, buffer.end(1));
+
+    buffer.clear();
+
+    Assert.assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void addMergedJoinsOverlappingAndTouching() {
+    IntervalBuffer buffer = new IntervalBuffer();
+    buffer.addMerged(0, 10);
+    buffer.addMerged(5, 8);
+    buffer.addMerged(10, 20);
+    buffer.addMerged(30, 40);
+
+    assertIntervals(buffer, 0, 20, 30, 40);
+  }
+
+  @Test
+  public void union() {
+    IntervalBuffer out = new IntervalBuffer();
+
+    IntervalBuffer.union(of(0, 10, 50, 60), of(5, 20, 40, 50, 70, 80), out);
+
+    assertIntervals(out, 0, 20, 40, 60, 70, 80);
+  }
+
+  @Test
+  public void intersectDropsShortPieces() {
+    IntervalBuffer out = new IntervalBuffer();
+
+    IntervalBuffer.intersect(of(0, 30, 40, 100), of(20, 50, 60, 90), 15, out);
+
+    // [20, 30) and [40, 50) are too short.
+    assertIntervals(out, 60, 90);
+  }
+
+  @Test
+  public void subtract() {
+    IntervalBuffer out = new IntervalBuffer();
+
+    IntervalBuffer.subtract(of(0, 100, 200, 300), of(-10, 10, 50, 60, 90, 210, 250, 260), 1, out);
+
+    assertIntervals(out, 10, 50, 60, 90, 210, 250, 260, 300);
+  }
+
+  @Test
+  public void subtractDropsShortPieces() {
+    IntervalBuffer out = new IntervalBuffer();
+
+    IntervalBuffer.subtract(of(0, 100), of(20, 30, 40, 90), 15, out);
+
+    assertIntervals(out, 0, 20);
+  }
+
+  @Test
+  public void subtractNothingLeft() {
+    IntervalBuffer out = new IntervalBuffer();
+
+    IntervalBuffer.subtract(of(10, 20), of(0, 100), 0, out);
+
+    Assert.assertEquals(Collections.emptyList(), out.toTimeRanges());
+  }
+
+  @Test
+  public void toTimeRanges() {
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 10, false), TimeRange.fromStartEnd(20, 30, false)),
+        of(0, 10, 20, 30).toTimeRanges());
+  }
+}
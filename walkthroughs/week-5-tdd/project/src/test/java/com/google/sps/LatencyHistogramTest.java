@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void emptyHistogramReportsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    Assert.assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 1; value <= 10; value++) {
+      histogram.record(value);
+    }
+
+    Assert.assertEquals(5, histogram.getValueAtPercentile(50));
+    Assert.assertEquals(9, histogram.getValueAtPercentile(90));
+    Assert.assertEquals(10, histogram.getValueAtPercentile(100));
+    Assert.assertEquals(5.5, histogram.getMean(), 0);
+  }
+
+  @Test
+  public void largeValuesAreWithinOneSixteenth() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1_000_000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    long p99 = histogram.getValueAtPercentile(99);
+    Assert.assertTrue(p99 >= 990_000_000L);
+    Assert.assertTrue(p99 <= 990_000_000L + 990_000_000L / 16);
+    Assert.assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void bucketsCoverEveryValueInOrder() {
+    long previous = -1;
+    for (int bucket = 0; bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+      long highest = LatencyHistogram.highestValueIn(bucket);
+      Assert.assertEquals(bucket, LatencyHistogram.bucketOf(previous + 1));
+      Assert.assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+      previous = highest;
+    }
+    Assert.assertEquals(Long.MAX_VALUE,
+        LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void negativeValuesCountAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    Assert.assertEquals(1, histogram.getCount());
+    Assert.assertEquals(0, histogram.getMax());
+  }
+}
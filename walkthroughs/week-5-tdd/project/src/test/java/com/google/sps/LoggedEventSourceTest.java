@@ -0,0 +1,160 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LoggedEventSourceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_B));
+  private static final Event EVENT_AB = new Event("Event 3",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false), Arrays.asList(PERSON_A, PERSON_B));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void emptyDirectoryStartsWithInitialEvents() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (LoggedEventSource source = LoggedEventSource.open(directory, Arrays.asList(EVENT_A), 10)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A), source.getAllEvents());
+      source.removeEvent(EVENT_A);
+    }
+
+    // The initial events only seed a new directory.
+    try (LoggedEventSource source = LoggedEventSource.open(directory, Arrays.asList(EVENT_A), 10)) {
+      Assert.assertEquals(Collections.emptyList(), source.getAllEvents());
+    }
+  }
+
+  @Test
+  public void changesSurviveReopening() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      source.addEvent(EVENT_A);
+      source.addEvent(EVENT_B);
+      source.updateEvent(EVENT_B, EVENT_AB);
+      source.removeEvent(EVENT_A);
+    }
+
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      Assert.assertEquals(Arrays.asList(EVENT_AB), source.getAllEvents());
+      Assert.assertEquals(Arrays.asList(EVENT_AB), source.getEvents(
+          Arrays.asList(PERSON_B), LongTimeRange.wholeDay(0)));
+    }
+  }
+
+  @Test
+  public void snapshotsKeepTheLogShort() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 2)) {
+      source.addEvent(EVENT_A);
+      source.addEvent(EVENT_B);
+      source.addEvent(EVENT_AB);
+
+      // The second change took a snapshot, so only the third is left to replay.
+      Assert.assertEquals(new HashSet<>(Arrays.asList("snapshot-2.json", "log-3.jsonl")),
+          fileNames(directory));
+      Assert.assertEquals(1, Files.readAllLines(directory.resolve("log-3.jsonl")).size());
+    }
+
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 2)) {
+      Assert.assertEquals(new HashSet<>(Arrays.asList(EVENT_A, EVENT_B, EVENT_AB)),
+          new HashSet<>(source.getAllEvents()));
+      Assert.assertEquals(new HashSet<>(Arrays.asList("snapshot-3.json", "log-4.jsonl")),
+          fileNames(directory));
+    }
+  }
+
+  @Test
+  public void tornLastRecordIsIgnored() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      source.addEvent(EVENT_A);
+    }
+    // A crash while the second change was being written leaves half a line behind.
+    Files.write(directory.resolve("log-1.jsonl"), "{\"sequence\":2,\"op\":\"add\",\"ev"
+        .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A), source.getAllEvents());
+      source.addEvent(EVENT_B);
+    }
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), source.getAllEvents());
+    }
+  }
+
+  @Test
+  public void oldLogIsSkippedUpToTheSnapshot() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      source.addEvent(EVENT_A);
+      source.addEvent(EVENT_B);
+    }
+    byte[] log = Files.readAllBytes(directory.resolve("log-1.jsonl"));
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      source.removeEvent(EVENT_B);
+    }
+    // As if a crash came after the snapshot was written but before the old log was deleted.
+    Files.write(directory.resolve("log-1.jsonl"), log);
+
+    try (LoggedEventSource source =
+        LoggedEventSource.open(directory, Collections.emptyList(), 10)) {
+      Assert.assertEquals(Arrays.asList(EVENT_A), source.getAllEvents());
+    }
+  }
+
+  private static Set<String> fileNames(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+    }
+  }
+}
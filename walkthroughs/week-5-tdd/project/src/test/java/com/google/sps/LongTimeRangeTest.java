@@ -0,0 +1,61 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LongTimeRangeTest {
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  @Test
+  public void dayOf() {
+    Assert.assertEquals(0, LongTimeRange.dayOf(0));
+    Assert.assertEquals(0, LongTimeRange.dayOf(LongTimeRange.MINUTES_PER_DAY - 1));
+    Assert.assertEquals(1, LongTimeRange.dayOf(LongTimeRange.MINUTES_PER_DAY));
+    Assert.assertEquals(-1, LongTimeRange.dayOf(-1));
+  }
+
+  @Test
+  public void onDayRoundTrips() {
+    TimeRange range = TimeRange.fromStartDuration(TIME_0900AM, 30);
+    LongTimeRange placed = LongTimeRange.onDay(14, range);
+
+    Assert.assertEquals(14L * LongTimeRange.MINUTES_PER_DAY + TIME_0900AM, placed.start());
+    Assert.assertEquals(range, placed.toTimeRange());
+  }
+
+  @Test
+  public void wholeDayRoundTrips() {
+    Assert.assertEquals(TimeRange.WHOLE_DAY, LongTimeRange.wholeDay(3).toTimeRange());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rangeAcrossMidnightIsNotATimeRange() {
+    LongTimeRange.fromStartDuration(LongTimeRange.MINUTES_PER_DAY - 10, 20).toTimeRange();
+  }
+
+  @Test
+  public void wholeDaysCoversEveryMinute() {
+    LongTimeRange twoWeeks = LongTimeRange.wholeDays(7, 14);
+
+    Assert.assertEquals(7L * LongTimeRange.MINUTES_PER_DAY, twoWeeks.start());
+    Assert.assertEquals(21L * LongTimeRange.MINUTES_PER_DAY, twoWeeks.end());
+  }
+}
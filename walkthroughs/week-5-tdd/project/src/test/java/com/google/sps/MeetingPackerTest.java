@@ -0,0 +1,245 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingPackerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1130AM = TimeRange.getTimeInMinutes(11, 30);
+  private static final int TIME_1230PM = TimeRange.getTimeInMinutes(12, 30);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+
+  private static final int DURATION_60_MINUTES = 60;
+  private static final int DURATION_90_MINUTES = 90;
+
+  private static final Duration BUDGET = Duration.ofSeconds(10);
+
+  @Test
+  public void meetingsThatShareAnAttendeeDoNotOverlap() {
+    Collection<Event> events = freeOnlyBetween(TIME_0900AM, TIME_1100AM, PERSON_A);
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_C), DURATION_60_MINUTES));
+
+    List<MeetingPlacement> actual = new MeetingPacker(BUDGET, 0).pack(events, requests);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES)), times(actual));
+  }
+
+  @Test
+  public void mostConstrainedRequestIsPlacedFirst() {
+    // Asked for first, the meeting with Person A alone would take 9:00, the only hour Person B
+    // has.
+    List<Event> events = new ArrayList<>();
+    events.addAll(freeOnlyBetween(TIME_0900AM, TIME_1100AM, PERSON_A));
+    events.addAll(freeOnlyBetween(TIME_0900AM, TIME_1000AM, PERSON_B));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES));
+
+    List<MeetingPlacement> actual = new MeetingPacker(BUDGET, 0).pack(events, requests);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES),
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES)), times(actual));
+  }
+
+  @Test
+  public void earlierMeetingIsMovedToMakeRoom() {
+    List<Event> events = new ArrayList<>();
+    events.addAll(freeOnlyBetween(TIME_1100AM, TIME_0200PM, PERSON_A));
+    events.addAll(freeOnlyBetween(TIME_0900AM, TIME_0100PM, PERSON_B));
+    events.addAll(freeOnlyBetween(TIME_1000AM, TIME_0200PM, PERSON_D));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_D), DURATION_90_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_B, PERSON_D), DURATION_90_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_D), DURATION_60_MINUTES));
+
+    // Placed at 11:00, the first meeting leaves no 90 minutes that Person B and Person D share.
+    List<MeetingPlacement> greedy = new MeetingPacker(BUDGET, 0).pack(events, requests);
+    Assert.assertEquals(MeetingPlacement.Outcome.CONFLICTS, greedy.get(1).getOutcome());
+
+    List<MeetingPlacement> actual = new MeetingPacker(BUDGET, 10).pack(events, requests);
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1230PM, TIME_0200PM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1130AM, false),
+        TimeRange.fromStartEnd(TIME_1130AM, TIME_1230PM, false)), times(actual));
+  }
+
+  @Test
+  public void requestWithoutFreeTimeIsNotPlaced() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_B), DURATION_60_MINUTES));
+
+    List<MeetingPlacement> actual = new MeetingPacker(BUDGET, 10).pack(events, requests);
+
+    Assert.assertEquals(MeetingPlacement.Outcome.NO_FREE_TIME, actual.get(0).getOutcome());
+    Assert.assertNull(actual.get(0).getWhen());
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_60_MINUTES),
+        actual.get(1).getWhen());
+  }
+
+  @Test
+  public void requestWhoseTimeWasTakenIsNotPlaced() {
+    Collection<Event> events = freeOnlyBetween(TIME_0900AM, TIME_1000AM, PERSON_A);
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES));
+
+    List<MeetingPlacement> actual = new MeetingPacker(BUDGET, 10).pack(events, requests);
+
+    Assert.assertTrue(actual.get(0).isPlaced());
+    Assert.assertEquals(MeetingPlacement.Outcome.CONFLICTS, actual.get(1).getOutcome());
+  }
+
+  @Test
+  public void eachMeetingBooksItsOwnRoom() {
+    Resource room1 = new Resource("Room 1", 8);
+    Resource room2 = new Resource("Room 2", 8);
+    ResourceRequirement anyRoom = new ResourceRequirement(Arrays.asList(room1, room2), 8);
+    List<Event> events = new ArrayList<>();
+    events.addAll(freeOnlyBetween(TIME_0900AM, TIME_1000AM, PERSON_A));
+    events.addAll(freeOnlyBetween(TIME_0900AM, TIME_1000AM, PERSON_B));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    first.addResourceRequirement(anyRoom);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_60_MINUTES);
+    second.addResourceRequirement(anyRoom);
+
+    List<MeetingPlacement> actual =
+        new MeetingPacker(BUDGET, 10).pack(events, Arrays.asList(first, second));
+
+    Assert.assertEquals(Arrays.asList("Room 1"), actual.get(0).getResources());
+    Assert.assertEquals(Arrays.asList("Room 2"), actual.get(1).getResources());
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_B, "Room 2")),
+        actual.get(1).toEvent("Meeting").getAttendees());
+  }
+
+  @Test
+  public void sharedPoolsAreMatchedNotTakenGreedily() {
+    // Taking Room 1 for the first requirement would leave nothing for the second.
+    Resource room1 = new Resource("Room 1", 8);
+    Resource room2 = new Resource("Room 2", 8);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room1, room2), 8));
+    request.addResourceRequirement(new ResourceRequirement(Arrays.asList(room1), 8));
+
+    List<MeetingPlacement> actual =
+        new MeetingPacker(BUDGET, 10).pack(Collections.emptyList(), Arrays.asList(request));
+
+    Assert.assertEquals(Arrays.asList("Room 2", "Room 1"), actual.get(0).getResources());
+  }
+
+  @Test
+  public void requestsLeftWhenTheBudgetRunsOutAreNotPlaced() {
+    // Every read of the clock is a second later.
+    Ticker ticker = new Ticker() {
+      private long nanos;
+
+      @Override
+      public long read() {
+        nanos += Duration.ofSeconds(1).toNanos();
+        return nanos;
+      }
+    };
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_B), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_C), DURATION_60_MINUTES));
+
+    // Looking up the three requests takes three seconds, and placing each one another.
+    List<MeetingPlacement> actual = new MeetingPacker(Duration.ofMillis(5500), 10, ticker)
+        .pack(Collections.emptyList(), requests);
+
+    Assert.assertTrue(actual.get(0).isPlaced());
+    Assert.assertTrue(actual.get(1).isPlaced());
+    Assert.assertEquals(MeetingPlacement.Outcome.OUT_OF_TIME, actual.get(2).getOutcome());
+  }
+
+  @Test
+  public void requestsNotLookedAtWhenTheBudgetRunsOutAreNotPlaced() {
+    // Every read of the clock is a second later.
+    Ticker ticker = new Ticker() {
+      private long nanos;
+
+      @Override
+      public long read() {
+        nanos += Duration.ofSeconds(1).toNanos();
+        return nanos;
+      }
+    };
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_B), DURATION_60_MINUTES),
+        new MeetingRequest(Arrays.asList(PERSON_C), DURATION_60_MINUTES));
+
+    // The budget runs out before the third request is looked up.
+    List<MeetingPlacement> actual = new MeetingPacker(Duration.ofMillis(2500), 10, ticker)
+        .pack(Collections.emptyList(), requests);
+
+    for (MeetingPlacement placement : actual) {
+      Assert.assertEquals(MeetingPlacement.Outcome.OUT_OF_TIME, placement.getOutcome());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void budgetCannotBeNegative() {
+    new MeetingPacker(Duration.ofSeconds(-1), 0);
+  }
+
+  /** Returns events that keep {@code attendee} busy all day except for {@code [start, end)}. */
+  private static List<Event> freeOnlyBetween(int start, int end, String attendee) {
+    return Arrays.asList(
+        new Event("Before", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, start, false),
+            Arrays.asList(attendee)),
+        new Event("After", TimeRange.fromStartEnd(end, TimeRange.END_OF_DAY, true),
+            Arrays.asList(attendee)));
+  }
+
+  private static List<TimeRange> times(List<MeetingPlacement> placements) {
+    List<TimeRange> times = new ArrayList<>();
+    for (MeetingPlacement placement : placements) {
+      times.add(placement.getWhen());
+    }
+    return times;
+  }
+}
@@ -14,6 +14,8 @@
 
 package com.google.sps;
 
+import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -44,4 +46,48 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test(expected = IllegalArgumentException.class)
+  public void alignmentMustBeInsideTheGrid() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setSlotGrid(30, 30);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void alignmentNeedsAGrid() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setSlotGrid(0, 15);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resourceRequirementsAreCapped() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    ResourceRequirement anyRoom =
+        new ResourceRequirement(Arrays.asList(new Resource("Room", 8)), 8);
+    for (int i = 0; i <= MeetingRequest.MAX_RESOURCE_REQUIREMENTS; i++) {
+      request.addResourceRequirement(anyRoom);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rankingCantFollowWorkingHours() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setWorkingHours(PERSON_A, WorkingHours.weekdays(ZoneOffset.UTC,
+        LocalTime.of(9, 0), LocalTime.of(17, 0)));
+    request.setRanking(3, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resourcesCantFollowRanking() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setRanking(3, 0);
+    request.addResourceRequirement(
+        new ResourceRequirement(Arrays.asList(new Resource("Room", 8)), 8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxSlotsCantBeNegative() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setMaxSlots(-1);
+  }
+}
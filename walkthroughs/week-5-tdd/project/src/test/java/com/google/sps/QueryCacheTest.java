@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private QueryCache<Collection<TimeRange>> cache;
+  private AtomicInteger queries;
+  private Function<MeetingRequest, Collection<TimeRange>> query;
+
+  @Before
+  public void setUp() {
+    cache = new QueryCache<>(100);
+    queries = new AtomicInteger();
+    query = request -> {
+      queries.incrementAndGet();
+      return Arrays.asList(TimeRange.fromStartDuration(0, (int) request.getDuration()));
+    };
+  }
+
+  @Test
+  public void attendeeOrderDoesNotMatter() {
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B),
+        DURATION_30_MINUTES);
+    first.addOptionalAttendee(PERSON_C);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A),
+        DURATION_30_MINUTES);
+    second.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> answer = cache.get(first, 1, query);
+
+    Assert.assertSame(answer, cache.get(second, 1, query));
+    Assert.assertEquals(1, queries.get());
+    Assert.assertEquals(1, cache.getStats().hitCount());
+    Assert.assertEquals(1, cache.getStats().missCount());
+  }
+
+  @Test
+  public void everyOptionIsPartOfTheKey() {
+    MeetingRequest plain = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest longer = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    MeetingRequest optional = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    optional.addOptionalAttendee(PERSON_B);
+    MeetingRequest aligned = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    aligned.setSlotGrid(30, 0);
+    MeetingRequest working = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    working.setWorkingHours(PERSON_A,
+        WorkingHours.weekdays(ZoneOffset.UTC, LocalTime.of(9, 0), LocalTime.of(17, 0)));
+
+    for (MeetingRequest request : Arrays.asList(plain, longer, optional, aligned, working)) {
+      cache.get(request, 1, query);
+    }
+
+    Assert.assertEquals(5, queries.get());
+    Assert.assertEquals(5, cache.size());
+  }
+
+  @Test
+  public void newVersionDropsOlderAnswers() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.get(request, 1, query);
+
+    cache.get(request, 2, query);
+
+    Assert.assertEquals(2, queries.get());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    cache = new QueryCache<>(2);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    cache.get(a, 1, query);
+    cache.get(b, 1, query);
+    cache.get(a, 1, query);
+
+    cache.get(c, 1, query);
+    cache.get(a, 1, query);
+    cache.get(b, 1, query);
+
+    // a was used more recently than b, so c evicts b and a is still cached.
+    Assert.assertEquals(4, queries.get());
+    Assert.assertEquals(2, cache.getStats().hitCount());
+  }
+}
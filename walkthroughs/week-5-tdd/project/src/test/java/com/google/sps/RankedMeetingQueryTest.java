@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RankedMeetingQueryTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private RankedMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new RankedMeetingQuery();
+  }
+
+  @Test
+  public void rankingOffReturnsNothing() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Collections.emptyList(), query.query(NO_EVENTS, request));
+  }
+
+  @Test
+  public void noConflictsFitsEveryone() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setRanking(3, 0);
+
+    List<RankedSlot> actual = query.query(NO_EVENTS, request);
+    List<RankedSlot> expected = Arrays.asList(new RankedSlot(TimeRange.WHOLE_DAY, 2));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void slotsAreRankedByOptionalAttendees() {
+    // B, C and D are optional. B is busy 8-10 and C is busy 9-11. The mandatory attendee A is
+    // busy from 12 onwards.
+    //
+    // Events  :         |---B---|
+    //                       |---C---|
+    //                                   |-------A-------|
+    // Day     : |-----------------------------------------|
+    // Free    :  B,C,D  | C,D | D |  B,D  |B,C,D|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+    request.setRanking(4, 0);
+
+    List<RankedSlot> actual = query.query(events, request);
+    List<RankedSlot> expected = Arrays.asList(
+        new RankedSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), 3),
+        new RankedSlot(TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false), 3),
+        new RankedSlot(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), 2),
+        new RankedSlot(TimeRange.fromStartEnd(TIME_1000AM, TIME_1200PM, false), 2));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void onlyTheBestSlotsAreKept() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setRanking(1, 0);
+
+    List<RankedSlot> actual = query.query(events, request);
+    List<RankedSlot> expected = Arrays.asList(
+        new RankedSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), 2));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void minimumCoverageDropsSlots() {
+    // Every slot that fits B also fits nobody else, and B is busy most of the day.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setRanking(5, 1);
+
+    List<RankedSlot> actual = query.query(events, request);
+    List<RankedSlot> expected = Arrays.asList(
+        new RankedSlot(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), 1));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void doubleBookedOptionalAttendeeCountsOnce() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setRanking(2, 0);
+
+    List<RankedSlot> actual = query.query(events, request);
+    List<RankedSlot> expected = Arrays.asList(
+        new RankedSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), 1),
+        new RankedSlot(TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true), 1));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
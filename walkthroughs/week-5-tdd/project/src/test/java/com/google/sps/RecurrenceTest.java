@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  // A Wednesday.
+  private static final LocalDate DAY_ZERO = LocalDate.of(2020, 1, 1);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  @Test
+  public void parseDaily() {
+    Assert.assertEquals(Recurrence.daily(2).withCount(5),
+        Recurrence.parse("FREQ=DAILY;INTERVAL=2;COUNT=5", DAY_ZERO));
+  }
+
+  @Test
+  public void parseWeeklyByDay() {
+    Recurrence expected = Recurrence.weekly(1, DayOfWeek.WEDNESDAY,
+        EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+
+    Assert.assertEquals(expected, Recurrence.parse("FREQ=WEEKLY;BYDAY=MO,FR;WKST=MO", DAY_ZERO));
+    Assert.assertEquals(expected, Recurrence.parse("freq=weekly;byday=fr,mo", DAY_ZERO));
+  }
+
+  @Test
+  public void parseUntil() {
+    // The tenth of January at 9am, counted from midnight on the first.
+    int until = 9 * DAY + TimeRange.getTimeInMinutes(9, 0);
+
+    Assert.assertEquals(until,
+        Recurrence.parse("FREQ=DAILY;UNTIL=20200110T090000Z", DAY_ZERO).getUntil());
+    Assert.assertEquals(9 * DAY,
+        Recurrence.parse("FREQ=DAILY;UNTIL=20200110", DAY_ZERO).getUntil());
+  }
+
+  @Test
+  public void parseDefaults() {
+    Recurrence recurrence = Recurrence.parse("FREQ=WEEKLY", DAY_ZERO);
+
+    Assert.assertEquals(Recurrence.Frequency.WEEKLY, recurrence.getFrequency());
+    Assert.assertEquals(1, recurrence.getInterval());
+    Assert.assertEquals(Long.MAX_VALUE, recurrence.getCount());
+    Assert.assertEquals(Long.MAX_VALUE, recurrence.getUntil());
+  }
+
+  @Test
+  public void unsupportedRulesAreRejected() {
+    String[] rules = {
+        "INTERVAL=2",
+        "FREQ=MONTHLY",
+        "FREQ=DAILY;BYDAY=MO",
+        "FREQ=WEEKLY;BYDAY=1MO",
+        "FREQ=WEEKLY;BYMONTH=1",
+        "FREQ=WEEKLY;WKST=SU",
+        "FREQ=DAILY;INTERVAL=0",
+        "FREQ=DAILY;COUNT=-1",
+        "FREQ=DAILY;UNTIL=tomorrow",
+        "FREQ"};
+    for (String rule : rules) {
+      try {
+        Recurrence.parse(rule, DAY_ZERO);
+        Assert.fail("Expected " + rule + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DAY = LongTimeRange.MINUTES_PER_DAY;
+
+  // Day 0 is a Wednesday; the first occurrence is on day 1, a Thursday.
+  private static final Event FIRST = new Event("Standup",
+      TimeRange.fromStartEnd(DAY + TIME_0900AM, DAY + TIME_1000AM, false),
+      Arrays.asList(PERSON_A));
+
+  @Test
+  public void dailyEveryOtherDay() {
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.daily(2));
+
+    Assert.assertEquals(Arrays.asList(onDay(1), onDay(3), onDay(5)),
+        series.expand(LongTimeRange.wholeDays(0, 7)));
+  }
+
+  @Test
+  public void weeklyOnWeekdays() {
+    // Mondays and Thursdays. Day 5 is the first Monday.
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.weekly(1, DayOfWeek.WEDNESDAY,
+        EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY)));
+
+    Assert.assertEquals(Arrays.asList(onDay(1), onDay(5), onDay(8), onDay(12)),
+        series.expand(LongTimeRange.wholeDays(0, 14)));
+  }
+
+  @Test
+  public void everyOtherWeekCountsWeeksFromTheFirstOne() {
+    // The first week runs from Monday day -2 to Sunday day 4, so the next one used starts on
+    // day 12.
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.weekly(2, DayOfWeek.WEDNESDAY,
+        EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY)));
+
+    Assert.assertEquals(Arrays.asList(onDay(1), onDay(12), onDay(15)),
+        series.expand(LongTimeRange.wholeDays(0, 21)));
+  }
+
+  @Test
+  public void weeklyWithoutWeekdaysRepeatsTheFirstDay() {
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.weekly(1));
+
+    Assert.assertEquals(Arrays.asList(onDay(8), onDay(15)),
+        series.expand(LongTimeRange.wholeDays(2, 14)));
+  }
+
+  @Test
+  public void countAndUntilEndTheSeries() {
+    RecurringEvent counted = new RecurringEvent(FIRST, Recurrence.daily(1).withCount(3));
+    RecurringEvent until =
+        new RecurringEvent(FIRST, Recurrence.daily(1).withUntil(3 * DAY + TIME_0900AM));
+
+    Assert.assertEquals(Arrays.asList(onDay(1), onDay(2), onDay(3)),
+        counted.expand(LongTimeRange.wholeDays(0, 10)));
+    Assert.assertEquals(Arrays.asList(onDay(1), onDay(2), onDay(3)),
+        until.expand(LongTimeRange.wholeDays(0, 10)));
+  }
+
+  @Test
+  public void countIsKeptWhenTheWindowStartsLater() {
+    // The four occurrences fall on days 1, 5, 8 and 12; the window skips the first two.
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.weekly(1, DayOfWeek.WEDNESDAY,
+        EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY)).withCount(4));
+
+    Assert.assertEquals(Arrays.asList(onDay(8), onDay(12)),
+        series.expand(LongTimeRange.wholeDays(6, 100)));
+  }
+
+  @Test
+  public void occurrenceOverlappingTheWindowStartIsIncluded() {
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.daily(1));
+    LongTimeRange window =
+        LongTimeRange.fromStartEnd(4 * DAY + TIME_0900AM + 30, 5 * DAY + TIME_0900AM);
+
+    Assert.assertEquals(Arrays.asList(onDay(4)), series.expand(window));
+  }
+
+  @Test
+  public void farWindowMatchesExpandingFromTheStart() {
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.weekly(3, DayOfWeek.WEDNESDAY,
+        EnumSet.of(DayOfWeek.TUESDAY, DayOfWeek.SATURDAY)).withCount(200));
+    LongTimeRange window = LongTimeRange.wholeDays(500, 60);
+
+    List<Event> expected = new ArrayList<>();
+    for (Event occurrence : series.expand(LongTimeRange.wholeDays(0, 2000))) {
+      long day = LongTimeRange.dayOf(occurrence.getWhen().start());
+      if (day >= 500 && day < 560) {
+        expected.add(occurrence);
+      }
+    }
+
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, series.expand(window));
+  }
+
+  @Test
+  public void occurrencesShareTheSeriesAttendees() {
+    RecurringEvent series = new RecurringEvent(FIRST, Recurrence.daily(1));
+
+    Event occurrence = series.occurrences(LongTimeRange.wholeDay(3)).next();
+
+    Assert.assertEquals(FIRST.getTitle(), occurrence.getTitle());
+    Assert.assertEquals(FIRST.getAttendees(), occurrence.getAttendees());
+  }
+
+  private static Event onDay(int day) {
+    return new Event(FIRST.getTitle(), TimeRange.fromStartEnd(
+        day * DAY + TIME_0900AM, day * DAY + TIME_1000AM, false), FIRST.getAttendees());
+  }
+}
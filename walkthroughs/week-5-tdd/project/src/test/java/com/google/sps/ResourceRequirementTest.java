@@ -0,0 +1,55 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ResourceRequirementTest {
+  private static final Resource SMALL = new Resource("Small", 4);
+  private static final Resource MEDIUM = new Resource("Medium", 8);
+  private static final Resource LARGE = new Resource("Large", 20);
+
+  @Test
+  public void onlyLargeEnoughResourcesQualify() {
+    ResourceRequirement requirement =
+        new ResourceRequirement(Arrays.asList(SMALL, LARGE, MEDIUM), 8);
+
+    Assert.assertEquals(Arrays.asList("Large", "Medium"), requirement.getQualifying());
+  }
+
+  @Test
+  public void resourcesListedTwiceQualifyOnce() {
+    ResourceRequirement requirement = new ResourceRequirement(Arrays.asList(LARGE, LARGE), 8);
+
+    Assert.assertEquals(Arrays.asList("Large"), requirement.getQualifying());
+  }
+
+  @Test
+  public void requirementsWithTheSamePoolAreEqual() {
+    Assert.assertEquals(new ResourceRequirement(Arrays.asList(SMALL, MEDIUM), 8),
+        new ResourceRequirement(Arrays.asList(SMALL, MEDIUM), 8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityCannotBeNegative() {
+    new Resource("Room", -1);
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  // Midnight UTC on a Monday.
+  private static final Instant MONDAY = Instant.parse("2020-01-06T00:00:00Z");
+
+  private static final LocalTime NINE = LocalTime.of(9, 0);
+  private static final LocalTime FIVE = LocalTime.of(17, 0);
+
+  private static final int TIME_0700AM = TimeRange.getTimeInMinutes(7, 0);
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_0300PM = TimeRange.getTimeInMinutes(15, 0);
+  private static final int TIME_0400PM = TimeRange.getTimeInMinutes(16, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+  private static final int TIME_1000PM = TimeRange.getTimeInMinutes(22, 0);
+
+  @Test
+  public void weekdaysInUtc() {
+    WorkingHours hours = WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false)),
+        hours.toMask(MONDAY, 0).getFreeTimes(0));
+    // Day 5 is a Saturday.
+    Assert.assertEquals(Arrays.asList(), hours.toMask(MONDAY, 5).getFreeTimes(0));
+  }
+
+  @Test
+  public void hoursAreReadInTheirZone() {
+    // New York is five hours behind UTC in January.
+    WorkingHours hours = WorkingHours.weekdays(ZoneId.of("America/New_York"), NINE, FIVE);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0200PM, TIME_1000PM, false)),
+        hours.toMask(MONDAY, 0).getFreeTimes(0));
+  }
+
+  @Test
+  public void daylightSavingMovesTheMask() {
+    // Berlin moves from UTC+1 to UTC+2 on Sunday the 29th of March 2020.
+    Instant friday = Instant.parse("2020-03-27T00:00:00Z");
+    WorkingHours hours = WorkingHours.weekdays(ZoneId.of("Europe/Berlin"), NINE, FIVE);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0400PM, false)),
+        hours.toMask(friday, 0).getFreeTimes(0));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0700AM, TIME_0300PM, false)),
+        hours.toMask(friday, 3).getFreeTimes(0));
+  }
+
+  @Test
+  public void overnightHoursRunIntoTheNextDay() {
+    WorkingHours hours = new WorkingHours(ZoneOffset.UTC, LocalTime.of(22, 0), LocalTime.of(6, 0),
+        EnumSet.allOf(DayOfWeek.class));
+
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TimeRange.getTimeInMinutes(6, 0), false),
+        TimeRange.fromStartEnd(TIME_1000PM, TimeRange.END_OF_DAY, true)),
+        hours.toMask(MONDAY, 0).getFreeTimes(0));
+  }
+
+  @Test
+  public void negativeDaysAreBeforeTheEpoch() {
+    // Day -1 is a Sunday.
+    WorkingHours hours = WorkingHours.weekdays(ZoneOffset.UTC, NINE, FIVE);
+
+    Assert.assertTrue(hours.toMask(MONDAY, -1).getFreeTimes(0).isEmpty());
+    Assert.assertFalse(hours.toMask(MONDAY, -3).getFreeTimes(0).isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyHoursAreRejected() {
+    new WorkingHours(ZoneOffset.UTC, NINE, NINE, EnumSet.allOf(DayOfWeek.class));
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.CalendarJson;
+import com.google.sps.MeetingRequest;
+import com.google.sps.WorkingHours;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BatchQueryServletTest {
+  private final BatchQueryServlet servlet = new BatchQueryServlet();
+  private final StringWriter body = new StringWriter();
+  private int status = HttpServletResponse.SC_OK;
+
+  @Before
+  public void setUp() {
+    servlet.init();
+  }
+
+  @After
+  public void tearDown() {
+    servlet.destroy();
+  }
+
+  @Test
+  public void nullRequestIsRefusedBeforeAnythingIsWritten() throws IOException, ServletException {
+    post("[{\"attendees\": [\"Person A\"], \"duration\": 30}, null]");
+
+    Assert.assertEquals(HttpServletResponse.SC_BAD_REQUEST, status);
+    Assert.assertEquals("", body.toString());
+  }
+
+  @Test
+  public void rankedRequestIsAnsweredAsQueryAnswersIt() throws IOException, ServletException {
+    MeetingRequest ranked = new MeetingRequest(Arrays.asList("Person A"), 30);
+    ranked.addOptionalAttendee("Person B");
+    ranked.setRanking(3, 0);
+    StringWriter expected = new StringWriter();
+    JsonWriter writer = new JsonWriter(expected);
+    writer.beginArray();
+    MeetingAnswers.write(MeetingAnswers.find(ranked), ranked, writer);
+    writer.endArray();
+    writer.flush();
+
+    post(CalendarJson.gson().toJson(new MeetingRequest[] {ranked}));
+
+    Assert.assertEquals(HttpServletResponse.SC_OK, status);
+    Assert.assertEquals(expected.toString(), body.toString());
+  }
+
+  @Test
+  public void clientEpochIsReplacedByTheCalendars() throws IOException, ServletException {
+    String expected = answer(withWorkingHours());
+    // A Saturday, on which Person A doesn't work.
+    MeetingRequest saturday = withWorkingHours();
+    saturday.setEpoch(Instant.parse("1970-01-03T05:17:00Z"));
+
+    post(CalendarJson.gson().toJson(new MeetingRequest[] {saturday}));
+
+    Assert.assertEquals(HttpServletResponse.SC_OK, status);
+    Assert.assertEquals(expected, body.toString());
+  }
+
+  private static MeetingRequest withWorkingHours() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A"), 30);
+    request.setWorkingHours("Person A",
+        WorkingHours.weekdays(ZoneOffset.UTC, LocalTime.of(9, 0), LocalTime.of(17, 0)));
+    return request;
+  }
+
+  private static String answer(MeetingRequest meetingRequest) throws IOException {
+    StringWriter answer = new StringWriter();
+    JsonWriter writer = new JsonWriter(answer);
+    writer.beginArray();
+    MeetingAnswers.write(MeetingAnswers.find(meetingRequest), meetingRequest, writer);
+    writer.endArray();
+    writer.flush();
+    return answer.toString();
+  }
+
+  private void post(String json) throws IOException, ServletException {
+    HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+        HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("getReader")) {
+            return new BufferedReader(new StringReader(json));
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+    PrintWriter out = new PrintWriter(body);
+    HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+        HttpServletResponse.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "sendError":
+              status = (Integer) args[0];
+              return null;
+            case "setContentType":
+              return null;
+            case "getWriter":
+              return out;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    servlet.doPost(request, response);
+    out.flush();
+  }
+}
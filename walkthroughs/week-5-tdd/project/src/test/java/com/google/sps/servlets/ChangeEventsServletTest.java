@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalUserServiceTestConfig;
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ChangeEventsServletTest {
+  private static final Event EVENT = new Event("Event 1",
+      TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(8, 0), 60),
+      Arrays.asList("Change Events Servlet Test"));
+
+  private final LocalServiceTestHelper helper =
+      new LocalServiceTestHelper(new LocalUserServiceTestConfig())
+          .setEnvAuthDomain("example.com")
+          .setEnvEmail("someone@example.com");
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void signedOutUsersCannotChangeEvents() throws IOException {
+    helper.setEnvIsLoggedIn(false).setUp();
+
+    Assert.assertEquals(HttpServletResponse.SC_FORBIDDEN, post("/create-event", EVENT));
+    Assert.assertFalse(SharedCalendar.getEventSource().getAllEvents().contains(EVENT));
+  }
+
+  @Test
+  public void usersWhoAreNotAdministratorsCannotChangeEvents() throws IOException {
+    helper.setEnvIsLoggedIn(true).setEnvIsAdmin(false).setUp();
+
+    Assert.assertEquals(HttpServletResponse.SC_FORBIDDEN, post("/create-event", EVENT));
+    Assert.assertFalse(SharedCalendar.getEventSource().getAllEvents().contains(EVENT));
+  }
+
+  @Test
+  public void administratorsCanChangeEvents() throws IOException {
+    helper.setEnvIsLoggedIn(true).setEnvIsAdmin(true).setUp();
+
+    Assert.assertEquals(HttpServletResponse.SC_NO_CONTENT, post("/create-event", EVENT));
+    Assert.assertTrue(SharedCalendar.getEventSource().getAllEvents().contains(EVENT));
+    Assert.assertEquals(HttpServletResponse.SC_NO_CONTENT, post("/delete-event", EVENT));
+    Assert.assertFalse(SharedCalendar.getEventSource().getAllEvents().contains(EVENT));
+  }
+
+  /** Posts {@code event} to {@code path} and returns the status of the response. */
+  private static int post(String path, Event event) throws IOException {
+    byte[] body = CalendarJson.gson().toJson(event).getBytes(StandardCharsets.UTF_8);
+    ByteArrayInputStream bytes = new ByteArrayInputStream(body);
+    ServletInputStream input = new ServletInputStream() {
+      @Override
+      public int read() {
+        return bytes.read();
+      }
+
+      @Override
+      public boolean isFinished() {
+        return bytes.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener listener) {}
+    };
+    HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+        HttpServletRequest.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getServletPath":
+              return path;
+            case "getContentLengthLong":
+              return (long) body.length;
+            case "getInputStream":
+              return input;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    int[] status = {HttpServletResponse.SC_OK};
+    HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+        HttpServletResponse.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "sendError":
+            case "setStatus":
+              status[0] = (Integer) args[0];
+              return null;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    new ChangeEventsServlet().doPost(request, response);
+    return status[0];
+  }
+}